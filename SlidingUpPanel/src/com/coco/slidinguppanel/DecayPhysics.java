@@ -0,0 +1,106 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Fling slowed down by constant friction, evaluated in closed form so the position at any time
+ * doesn't depend on the frame rate. It never overshoots: a release fast enough to reach the target
+ * keeps its velocity and brakes harder to stop right on the target, a slower one (or one moving
+ * away) starts at the speed the friction alone brings to rest on the target.
+ */
+public final class DecayPhysics implements PanelPhysics {
+	public static final float DEFAULT_FRICTION = 8000f;
+
+	private final float mFriction;
+
+	private float mStartPosition;
+	private float mTarget;
+	private float mDirection;
+	private float mStartSpeed;
+	private float mDeceleration;
+	private float mDuration; // seconds
+	private float mPosition;
+	private float mVelocity;
+
+	public DecayPhysics() {
+		this(DEFAULT_FRICTION);
+	}
+
+	/**
+	 * @param friction
+	 *            Deceleration in pixels per second squared, higher settles faster.
+	 */
+	public DecayPhysics(float friction) {
+		if (friction <= 0) {
+			throw new IllegalArgumentException("friction must be positive");
+		}
+		mFriction = friction;
+	}
+
+	@Override
+	public void start(float position, float velocity, float target) {
+		final float distance = Math.abs(target - position);
+		mStartPosition = position;
+		mTarget = target;
+		mDirection = target > position ? 1f : -1f;
+		mPosition = position;
+		if (distance == 0) {
+			mStartSpeed = 0;
+			mDeceleration = 0;
+			mDuration = 0;
+			mVelocity = 0;
+			return;
+		}
+		mStartSpeed = Math.max(velocity * mDirection, (float) Math.sqrt(2 * mFriction * distance));
+		// Come to rest exactly after distance: v^2 = 2 * a * d.
+		mDeceleration = mStartSpeed * mStartSpeed / (2 * distance);
+		mDuration = 2 * distance / mStartSpeed;
+		mVelocity = mStartSpeed * mDirection;
+	}
+
+	@Override
+	public boolean computeAt(long elapsedMillis) {
+		final float t = elapsedMillis / 1000f;
+		if (t >= mDuration) {
+			mPosition = mTarget;
+			mVelocity = 0;
+			return false;
+		}
+		final float speed = mStartSpeed - mDeceleration * t;
+		final float travelled = (mStartSpeed + speed) * 0.5f * t;
+		mPosition = mStartPosition + mDirection * travelled;
+		mVelocity = mDirection * speed;
+		return true;
+	}
+
+	@Override
+	public float getPosition() {
+		return mPosition;
+	}
+
+	@Override
+	public float getVelocity() {
+		return mVelocity;
+	}
+}
@@ -0,0 +1,104 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Inflates the panel's child on a background thread and hands it to the UI thread. Views whose
+ * constructors need the UI thread, e.g. to create a {@link Handler}, fail to inflate in the
+ * background; the layout is then inflated again on the UI thread. The background thread uses its
+ * own {@link LayoutInflater}, the one of the context isn't safe to share with the UI thread.
+ */
+final class PanelAsyncInflater {
+	private static final String TAG = "PanelAsyncInflater";
+
+	/**
+	 * Callback interface invoked on the UI thread with the inflated child.
+	 */
+	interface Callback {
+		void onChildInflated(View child);
+	}
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final ViewGroup mParent;
+	private final int mLayout;
+	private final Callback mCallback;
+	private volatile boolean mIsCanceled;
+
+	PanelAsyncInflater(ViewGroup parent, int layout, Callback callback) {
+		mParent = parent;
+		mLayout = layout;
+		mCallback = callback;
+	}
+
+	void start() {
+		final LayoutInflater inflater = LayoutInflater.from(mParent.getContext()).cloneInContext(
+				mParent.getContext());
+		new Thread("SlidingUpPanel-inflate") {
+			@Override
+			public void run() {
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				View child = null;
+				try {
+					// The parent is only used to generate the layout params.
+					child = inflater.inflate(mLayout, mParent, false);
+				} catch (RuntimeException e) {
+					Log.w(TAG, "Failed to inflate in the background, falling back to the UI thread", e);
+				}
+				if (!mIsCanceled) {
+					deliver(child);
+				}
+			}
+		}.start();
+	}
+
+	/**
+	 * Drop the result, the callback won't be invoked any more and nothing stays posted to the UI
+	 * thread.
+	 */
+	void cancel() {
+		mIsCanceled = true;
+		mHandler.removeCallbacksAndMessages(null);
+	}
+
+	private void deliver(final View inflated) {
+		mHandler.post(new Runnable() {
+			public void run() {
+				if (mIsCanceled) {
+					return;
+				}
+				final View child = inflated != null ? inflated
+						: LayoutInflater.from(mParent.getContext()).inflate(mLayout, mParent, false);
+				mCallback.onChildInflated(child);
+			}
+		});
+	}
+}
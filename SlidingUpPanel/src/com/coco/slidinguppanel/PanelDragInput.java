@@ -0,0 +1,102 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Recent touch samples of a drag, including the historical samples batched into each move event,
+ * kept in a fixed primitive ring buffer. Used to predict where the finger will be a few milliseconds
+ * ahead, to hide part of the touch to display latency.
+ */
+final class PanelDragInput {
+	private static final int CAPACITY = 32;
+	private static final long FIT_WINDOW = 48; // ms
+
+	private final long[] mTimes = new long[CAPACITY];
+	private final float[] mPositions = new float[CAPACITY];
+	private int mHead = -1;
+	private int mCount;
+
+	void reset() {
+		mHead = -1;
+		mCount = 0;
+	}
+
+	void addSample(long time, float position) {
+		if (mCount > 0 && time < mTimes[mHead]) {
+			// Out of order sample, e.g. from a new gesture, start over.
+			reset();
+		}
+		mHead = (mHead + 1) % CAPACITY;
+		mTimes[mHead] = time;
+		mPositions[mHead] = position;
+		if (mCount < CAPACITY) {
+			mCount++;
+		}
+	}
+
+	int getSampleCount() {
+		return mCount;
+	}
+
+	/**
+	 * Predict the position horizon milliseconds after the newest sample, extrapolating the least
+	 * squares velocity of the recent samples.
+	 * 
+	 * @param maxDistance
+	 *            Upper bound of the extrapolated distance, so a noisy fit can't overshoot much.
+	 */
+	float predict(long horizon, float maxDistance) {
+		if (mCount == 0) {
+			return 0f;
+		}
+		final float newest = mPositions[mHead];
+		if (mCount < 2 || horizon <= 0) {
+			return newest;
+		}
+		final long newestTime = mTimes[mHead];
+		// Fit position = a + b * time on samples inside the window, relative to the newest one.
+		double sumT = 0, sumP = 0, sumTT = 0, sumTP = 0;
+		int n = 0;
+		for (int i = 0, index = mHead; i < mCount; i++) {
+			final long t = mTimes[index] - newestTime;
+			if (-t > FIT_WINDOW) {
+				break;
+			}
+			final double p = mPositions[index] - newest;
+			sumT += t;
+			sumP += p;
+			sumTT += (double) t * t;
+			sumTP += t * p;
+			n++;
+			index = index == 0 ? CAPACITY - 1 : index - 1;
+		}
+		final double denominator = n * sumTT - sumT * sumT;
+		if (n < 2 || denominator == 0) {
+			return newest;
+		}
+		final double velocity = (n * sumTP - sumT * sumP) / denominator; // px per ms
+		final double distance = Math.max(-maxDistance, Math.min(maxDistance, velocity * horizon));
+		return (float) (newest + distance);
+	}
+}
@@ -0,0 +1,113 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+
+/**
+ * The last events of a panel kept in fixed primitive arrays, cheap enough to stay on in production
+ * and dumped on demand, e.g. into a bug report.
+ */
+final class PanelEventLog {
+	static final int EVENT_STATE = 0;
+	static final int EVENT_TOUCH_DOWN = 1;
+	static final int EVENT_TOUCH_UP = 2;
+	static final int EVENT_TOUCH_CANCEL = 3;
+	static final int EVENT_SETTLE_START = 4;
+	static final int EVENT_SETTLE_END = 5;
+	static final int EVENT_LAYOUT = 6;
+	static final int EVENT_RESTORE = 7;
+	static final int EVENT_RESET = 8;
+
+	private static final String[] EVENT_NAMES = {
+			"state", "touch-down", "touch-up", "touch-cancel",
+			"settle-start", "settle-end", "layout", "restore", "reset",
+	};
+
+	private static final String[] STATE_NAMES = {
+			"closed", "opened", "dragging", "fling",
+	};
+
+	private static final int CAPACITY = 128;
+
+	private final long[] mTimes = new long[CAPACITY];
+	private final int[] mEvents = new int[CAPACITY];
+	private final int[] mScrollYs = new int[CAPACITY];
+	private final float[] mVelocities = new float[CAPACITY];
+	private final int[] mStates = new int[CAPACITY];
+	private int mHead = -1;
+	private int mCount;
+
+	/**
+	 * @param value
+	 *            velocity in pixels per second for touch and settle events, the height for layout
+	 *            events.
+	 */
+	void log(int event, int scrollY, float value, int state) {
+		final int head = mHead = (mHead + 1) % CAPACITY;
+		mTimes[head] = SystemClock.uptimeMillis();
+		mEvents[head] = event;
+		mScrollYs[head] = scrollY;
+		mVelocities[head] = value;
+		mStates[head] = state;
+		if (mCount < CAPACITY) {
+			mCount++;
+		}
+	}
+
+	/**
+	 * Print the events oldest first, one per line, with times relative to now.
+	 */
+	void dump(PrintWriter writer, String prefix) {
+		final long now = SystemClock.uptimeMillis();
+		writer.print(prefix);
+		writer.print("SlidingUpPanel events (");
+		writer.print(mCount);
+		writer.println("):");
+		int index = (mHead - mCount + 1 + CAPACITY) % CAPACITY;
+		for (int i = 0; i < mCount; i++) {
+			writer.print(prefix);
+			writer.print("  -");
+			writer.print(now - mTimes[index]);
+			writer.print("ms ");
+			writer.print(EVENT_NAMES[mEvents[index]]);
+			writer.print(" scrollY=");
+			writer.print(mScrollYs[index]);
+			if (mEvents[index] == EVENT_LAYOUT) {
+				writer.print(" height=");
+				writer.print((int) mVelocities[index]);
+			} else {
+				writer.print(" v=");
+				writer.print(mVelocities[index]);
+			}
+			writer.print(" state=");
+			final int state = mStates[index];
+			writer.println(state >= 0 && state < STATE_NAMES.length ? STATE_NAMES[state]
+					: String.valueOf(state));
+			index = (index + 1) % CAPACITY;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Decides when the panel content should render cheaply while the panel moves. Switching to low
+ * fidelity happens after a few consecutive slow frames, and switching back only once the panel is
+ * at rest, so the mode doesn't flap within one gesture.
+ */
+final class PanelFidelity {
+	static final int SLOW_FRAMES_TO_DEGRADE = 3;
+
+	private boolean mLowFidelity;
+	private boolean mMoving;
+	private boolean mHasLastFrame;
+	private long mLastFrameNanos;
+	private int mSlowFrameCount;
+
+	boolean isLowFidelity() {
+		return mLowFidelity;
+	}
+
+	boolean isMoving() {
+		return mMoving;
+	}
+
+	/**
+	 * @param adaptive
+	 *            true to wait for slow frames, false to degrade right away.
+	 * @return true if the fidelity changed.
+	 */
+	boolean onMotionStarted(boolean adaptive) {
+		mMoving = true;
+		mHasLastFrame = false;
+		mSlowFrameCount = 0;
+		return !adaptive && setLowFidelity(true);
+	}
+
+	/**
+	 * Account the frame drawn at frameNanos while moving.
+	 * 
+	 * @return true if the fidelity changed.
+	 */
+	boolean onFrame(long frameNanos, long slowFrameNanos) {
+		if (!mMoving) {
+			return false;
+		}
+		final boolean hadLastFrame = mHasLastFrame;
+		final long interval = frameNanos - mLastFrameNanos;
+		mHasLastFrame = true;
+		mLastFrameNanos = frameNanos;
+		if (!hadLastFrame) {
+			return false;
+		}
+		if (interval > slowFrameNanos) {
+			mSlowFrameCount++;
+			if (mSlowFrameCount >= SLOW_FRAMES_TO_DEGRADE) {
+				return setLowFidelity(true);
+			}
+		} else {
+			mSlowFrameCount = 0;
+		}
+		return false;
+	}
+
+	void onMotionStopped() {
+		mMoving = false;
+	}
+
+	/**
+	 * @return true if the fidelity changed.
+	 */
+	boolean setLowFidelity(boolean lowFidelity) {
+		if (mLowFidelity == lowFidelity) {
+			return false;
+		}
+		mLowFidelity = lowFidelity;
+		return true;
+	}
+
+	void reset() {
+		mMoving = false;
+		mHasLastFrame = false;
+		mSlowFrameCount = 0;
+		mLowFidelity = false;
+	}
+}
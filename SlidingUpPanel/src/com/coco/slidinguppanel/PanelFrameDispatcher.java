@@ -0,0 +1,120 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Runs the frames of many {@link PanelFrameScheduler}s from one frame callback of a shared
+ * scheduler. Only the schedulers with a frame posted are visited, so the cost of a frame doesn't
+ * grow with the number of idle ones. Must be used from one thread only.
+ */
+final class PanelFrameDispatcher implements PanelFrameScheduler.Callback {
+	private static final int INITIAL_CAPACITY = 4;
+
+	private PanelFrameScheduler mFrameScheduler;
+	private PanelFrameScheduler[] mActive = new PanelFrameScheduler[INITIAL_CAPACITY];
+	private PanelFrameScheduler[] mDispatching = new PanelFrameScheduler[INITIAL_CAPACITY];
+	private int mActiveCount;
+
+	/**
+	 * @param frameScheduler
+	 *            Scheduler of the shared frame callback, created with this dispatcher as callback.
+	 */
+	void setFrameScheduler(PanelFrameScheduler frameScheduler) {
+		mFrameScheduler = frameScheduler;
+	}
+
+	/**
+	 * @return number of schedulers with a frame posted.
+	 */
+	int getActiveCount() {
+		return mActiveCount;
+	}
+
+	PanelFrameScheduler createScheduler(PanelFrameScheduler.Callback callback) {
+		return new DispatchedScheduler(callback);
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		// Schedulers posting the next frame while being dispatched go to mActive again.
+		final int count = mActiveCount;
+		if (mDispatching.length < count) {
+			mDispatching = new PanelFrameScheduler[mActive.length];
+		}
+		System.arraycopy(mActive, 0, mDispatching, 0, count);
+		for (int i = 0; i < count; i++) {
+			mActive[i] = null;
+		}
+		mActiveCount = 0;
+		for (int i = 0; i < count; i++) {
+			final PanelFrameScheduler scheduler = mDispatching[i];
+			mDispatching[i] = null;
+			scheduler.dispatchFrame(frameTimeNanos);
+		}
+	}
+
+	private void addActive(PanelFrameScheduler scheduler) {
+		if (mActiveCount == mActive.length) {
+			final PanelFrameScheduler[] active = new PanelFrameScheduler[mActiveCount * 2];
+			System.arraycopy(mActive, 0, active, 0, mActiveCount);
+			mActive = active;
+		}
+		mActive[mActiveCount++] = scheduler;
+		mFrameScheduler.postFrame();
+	}
+
+	private void removeActive(PanelFrameScheduler scheduler) {
+		for (int i = 0; i < mActiveCount; i++) {
+			if (mActive[i] == scheduler) {
+				System.arraycopy(mActive, i + 1, mActive, i, mActiveCount - i - 1);
+				mActive[--mActiveCount] = null;
+				break;
+			}
+		}
+		if (mActiveCount == 0) {
+			mFrameScheduler.cancelFrame();
+		}
+	}
+
+	private final class DispatchedScheduler extends PanelFrameScheduler {
+		DispatchedScheduler(Callback callback) {
+			super(callback);
+		}
+
+		@Override
+		long getFrameIntervalNanos() {
+			return mFrameScheduler.getFrameIntervalNanos();
+		}
+
+		@Override
+		protected void onPostFrame() {
+			addActive(this);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			removeActive(this);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Frame timing of one drag or fling gesture of {@link SlidingUpPanel}.
+ * <p>
+ * The same instance is reused for every gesture, so listeners must copy out any value they want to
+ * keep after {@link SlidingUpPanel.OnPanelFrameMetricsListener#onPanelFrameMetrics(PanelFrameMetrics)}
+ * returns.
+ */
+public final class PanelFrameMetrics {
+	public static final int GESTURE_NONE = 0;
+	public static final int GESTURE_DRAG = 1;
+	public static final int GESTURE_FLING = 2;
+
+	public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L; // 60Hz
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long BUCKET_NANOS = NANOS_PER_MILLI / 4;
+	private static final int BUCKET_COUNT = 512; // 128ms
+
+	/**
+	 * Source of frame timestamps, replaceable by a fake clock when testing.
+	 */
+	public interface FrameClock {
+		/**
+		 * @return current time in nanoseconds, only differences between two values are used.
+		 */
+		public long nanoTime();
+	}
+
+	static final FrameClock SYSTEM_CLOCK = new FrameClock() {
+		@Override
+		public long nanoTime() {
+			return System.nanoTime();
+		}
+	};
+
+	private final int[] mHistogram = new int[BUCKET_COUNT];
+	private FrameClock mClock = SYSTEM_CLOCK;
+	private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+	private int mGesture = GESTURE_NONE;
+	private boolean mRecording;
+	private long mStartNanos;
+	private long mLastFrameNanos;
+	private long mEndNanos;
+	private int mFrameCount;
+	private long mWorstIntervalNanos;
+	private int mMissedVsyncCount;
+	private int mPlannedDuration;
+
+	PanelFrameMetrics() {
+	}
+
+	void setClock(FrameClock clock) {
+		mClock = clock != null ? clock : SYSTEM_CLOCK;
+	}
+
+	void setFrameIntervalNanos(long frameIntervalNanos) {
+		mFrameIntervalNanos = frameIntervalNanos > 0 ? frameIntervalNanos : DEFAULT_FRAME_INTERVAL_NANOS;
+	}
+
+	boolean isRecording() {
+		return mRecording;
+	}
+
+	void begin(int gesture, int plannedDuration) {
+		mGesture = gesture;
+		mRecording = true;
+		mStartNanos = mLastFrameNanos = mClock.nanoTime();
+		mEndNanos = 0;
+		mFrameCount = 0;
+		mWorstIntervalNanos = 0;
+		mMissedVsyncCount = 0;
+		mPlannedDuration = plannedDuration;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			mHistogram[i] = 0;
+		}
+	}
+
+	void onFrame() {
+		if (!isRecording()) {
+			return;
+		}
+		final long now = mClock.nanoTime();
+		final long interval = now - mLastFrameNanos;
+		mLastFrameNanos = now;
+		mFrameCount++;
+		if (interval > mWorstIntervalNanos) {
+			mWorstIntervalNanos = interval;
+		}
+		// a frame taking longer than one and a half vsync periods missed at least one vsync.
+		if (interval * 2 > mFrameIntervalNanos * 3) {
+			mMissedVsyncCount += (int) ((interval + mFrameIntervalNanos / 2) / mFrameIntervalNanos) - 1;
+		}
+		final int bucket = (int) Math.min(BUCKET_COUNT - 1, Math.max(0, interval / BUCKET_NANOS));
+		mHistogram[bucket]++;
+	}
+
+	void end() {
+		if (isRecording()) {
+			mEndNanos = mClock.nanoTime();
+			mRecording = false;
+		}
+	}
+
+	/**
+	 * @return {@link #GESTURE_DRAG} or {@link #GESTURE_FLING}.
+	 */
+	public int getGesture() {
+		return mGesture;
+	}
+
+	public int getFrameCount() {
+		return mFrameCount;
+	}
+
+	public long getWorstFrameIntervalNanos() {
+		return mWorstIntervalNanos;
+	}
+
+	/**
+	 * @return 95th percentile of the frame intervals, with a resolution of a quarter millisecond.
+	 */
+	public long getP95FrameIntervalNanos() {
+		if (mFrameCount == 0) {
+			return 0;
+		}
+		final int rank = (int) Math.ceil(mFrameCount * 0.95);
+		int seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += mHistogram[i];
+			if (seen >= rank) {
+				return Math.min(mWorstIntervalNanos, (i + 1) * BUCKET_NANOS);
+			}
+		}
+		return mWorstIntervalNanos;
+	}
+
+	public int getMissedVsyncCount() {
+		return mMissedVsyncCount;
+	}
+
+	/**
+	 * @return duration in milliseconds the settle was planned with, 0 for a drag.
+	 */
+	public int getPlannedDuration() {
+		return mPlannedDuration;
+	}
+
+	/**
+	 * @return duration in milliseconds from the beginning to the end of the gesture.
+	 */
+	public int getActualDuration() {
+		final long end = mRecording ? mLastFrameNanos : mEndNanos;
+		return (int) ((end - mStartNanos) / NANOS_PER_MILLI);
+	}
+}
@@ -0,0 +1,87 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Delivers one callback per display frame with the vsync timestamp of that frame, so the settle of
+ * {@link SlidingUpPanel} is computed at the time the frame is shown rather than whenever it
+ * happens to run. Framework free, {@link PanelFrameSchedulers} creates the Android ones.
+ */
+abstract class PanelFrameScheduler {
+	static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L; // 60Hz
+
+	/**
+	 * Callback interface invoked on the UI thread once per requested frame.
+	 */
+	interface Callback {
+		void doFrame(long frameTimeNanos);
+	}
+
+	protected final Callback mCallback;
+	private boolean mIsPosted;
+
+	PanelFrameScheduler(Callback callback) {
+		mCallback = callback;
+	}
+
+	/**
+	 * Request a callback on the next frame, requesting it again before it ran is a no-op.
+	 */
+	final void postFrame() {
+		if (!mIsPosted) {
+			mIsPosted = true;
+			onPostFrame();
+		}
+	}
+
+	/**
+	 * Drop a requested callback, so nothing is scheduled any more.
+	 */
+	final void cancelFrame() {
+		if (mIsPosted) {
+			mIsPosted = false;
+			onCancelFrame();
+		}
+	}
+
+	final boolean isFramePosted() {
+		return mIsPosted;
+	}
+
+	final void dispatchFrame(long frameTimeNanos) {
+		if (mIsPosted) {
+			mIsPosted = false;
+			mCallback.doFrame(frameTimeNanos);
+		}
+	}
+
+	/**
+	 * @return time between two frames of the display, refreshed whenever it may have changed.
+	 */
+	abstract long getFrameIntervalNanos();
+
+	protected abstract void onPostFrame();
+
+	protected abstract void onCancelFrame();
+}
@@ -0,0 +1,161 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * Creates the {@link PanelFrameScheduler} of the running Android version: the {@link Choreographer}
+ * on Android 4.1+, and animation posts with the current time before.
+ */
+final class PanelFrameSchedulers {
+	private PanelFrameSchedulers() {
+	}
+
+	static PanelFrameScheduler create(View view, PanelFrameScheduler.Callback callback) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			return new ChoreographerScheduler(view.getContext(), callback);
+		}
+		return new AnimationPostScheduler(view, callback);
+	}
+
+	/**
+	 * Create a scheduler not tied to a view, falling back to posts on the main thread aligned to
+	 * 60Hz before Android 4.1.
+	 */
+	static PanelFrameScheduler create(Context context, PanelFrameScheduler.Callback callback) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			return new ChoreographerScheduler(context, callback);
+		}
+		return new HandlerScheduler(callback);
+	}
+
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	private static final class ChoreographerScheduler extends PanelFrameScheduler implements
+			Choreographer.FrameCallback {
+		private final Choreographer mChoreographer = Choreographer.getInstance();
+		private final WindowManager mWindowManager;
+
+		ChoreographerScheduler(Context context, Callback callback) {
+			super(callback);
+			mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		}
+
+		@Override
+		long getFrameIntervalNanos() {
+			// 90 and 120Hz displays may switch rates at runtime, so ask every time.
+			final Display display = mWindowManager != null ? mWindowManager.getDefaultDisplay() : null;
+			final float refreshRate = display != null ? display.getRefreshRate() : 0f;
+			if (refreshRate < 10f) {
+				return DEFAULT_FRAME_INTERVAL_NANOS;
+			}
+			return (long) (1000000000L / refreshRate);
+		}
+
+		@Override
+		protected void onPostFrame() {
+			mChoreographer.postFrameCallback(this);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			mChoreographer.removeFrameCallback(this);
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			dispatchFrame(frameTimeNanos);
+		}
+	}
+
+	private static final class AnimationPostScheduler extends PanelFrameScheduler implements Runnable {
+		private final View mView;
+
+		AnimationPostScheduler(View view, Callback callback) {
+			super(callback);
+			mView = view;
+		}
+
+		@Override
+		long getFrameIntervalNanos() {
+			return DEFAULT_FRAME_INTERVAL_NANOS;
+		}
+
+		@Override
+		protected void onPostFrame() {
+			ViewCompat.postOnAnimation(mView, this);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			mView.removeCallbacks(this);
+		}
+
+		@Override
+		public void run() {
+			dispatchFrame(System.nanoTime());
+		}
+	}
+
+	private static final class HandlerScheduler extends PanelFrameScheduler implements Runnable {
+		private static final long FRAME_MILLIS = DEFAULT_FRAME_INTERVAL_NANOS / 1000000L;
+
+		private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+		HandlerScheduler(Callback callback) {
+			super(callback);
+		}
+
+		@Override
+		long getFrameIntervalNanos() {
+			return DEFAULT_FRAME_INTERVAL_NANOS;
+		}
+
+		@Override
+		protected void onPostFrame() {
+			final long now = SystemClock.uptimeMillis();
+			mHandler.postAtTime(this, (now / FRAME_MILLIS + 1) * FRAME_MILLIS);
+		}
+
+		@Override
+		protected void onCancelFrame() {
+			mHandler.removeCallbacks(this);
+		}
+
+		@Override
+		public void run() {
+			dispatchFrame(System.nanoTime());
+		}
+	}
+}
@@ -0,0 +1,501 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compact binary trace of the touch events that reached a {@link SlidingUpPanel}, see
+ * {@link SlidingUpPanel#startGestureRecording(OutputStream)}.
+ * <p>
+ * Layout, all integers are unsigned varints unless noted:
+ * 
+ * <pre>
+ * header: 'S' 'U' 'P' 'T' version width height
+ * event:  action actionIndex pointerCount historySize sample[historySize + 1]
+ * sample: timeDelta(zigzag, ms) pointer[pointerCount]
+ * pointer: id x(zigzag, 1/16 px, delta) y(zigzag, 1/16 px, delta)
+ * </pre>
+ * 
+ * Time is relative to the previous sample, coordinates are relative to the previous sample of the
+ * same pointer id, so a typical move sample takes 4 to 6 bytes.
+ */
+public final class PanelGestureTrace {
+	static final int VERSION = 1;
+	static final int MAX_POINTERS = 16;
+
+	private static final int MAGIC_0 = 'S';
+	private static final int MAGIC_1 = 'U';
+	private static final int MAGIC_2 = 'P';
+	private static final int MAGIC_3 = 'T';
+	private static final float COORDINATE_SCALE = 16f;
+
+	private PanelGestureTrace() {
+	}
+
+	/**
+	 * Streams events into an {@link OutputStream} through its own buffer, without allocating per
+	 * event.
+	 */
+	static final class Writer {
+		private static final int BUFFER_SIZE = 4096;
+		private static final int MAX_VARINT_BYTES = 5;
+
+		private final OutputStream mOut;
+		private final byte[] mBuffer = new byte[BUFFER_SIZE];
+		private int mPosition;
+		private long mLastTime = -1;
+		private final int[] mLastX = new int[MAX_POINTERS];
+		private final int[] mLastY = new int[MAX_POINTERS];
+
+		Writer(OutputStream out, int width, int height) throws IOException {
+			mOut = out;
+			writeByte(MAGIC_0);
+			writeByte(MAGIC_1);
+			writeByte(MAGIC_2);
+			writeByte(MAGIC_3);
+			writeVarint(VERSION);
+			writeVarint(width);
+			writeVarint(height);
+		}
+
+		void beginEvent(int action, int actionIndex, int pointerCount, int historySize)
+				throws IOException {
+			writeVarint(action);
+			writeVarint(actionIndex);
+			writeVarint(pointerCount);
+			writeVarint(historySize);
+		}
+
+		void beginSample(long time) throws IOException {
+			final long delta = mLastTime < 0 ? 0 : time - mLastTime;
+			mLastTime = time;
+			writeVarint(zigzag((int) delta));
+		}
+
+		void writePointer(int id, float x, float y) throws IOException {
+			final int slot = id & (MAX_POINTERS - 1);
+			final int qx = Math.round(x * COORDINATE_SCALE);
+			final int qy = Math.round(y * COORDINATE_SCALE);
+			writeVarint(id);
+			writeVarint(zigzag(qx - mLastX[slot]));
+			writeVarint(zigzag(qy - mLastY[slot]));
+			mLastX[slot] = qx;
+			mLastY[slot] = qy;
+		}
+
+		void flush() throws IOException {
+			if (mPosition > 0) {
+				mOut.write(mBuffer, 0, mPosition);
+				mPosition = 0;
+			}
+			mOut.flush();
+		}
+
+		void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				mOut.close();
+			}
+		}
+
+		private void writeByte(int b) throws IOException {
+			if (mPosition == BUFFER_SIZE) {
+				mOut.write(mBuffer, 0, mPosition);
+				mPosition = 0;
+			}
+			mBuffer[mPosition++] = (byte) b;
+		}
+
+		private void writeVarint(int value) throws IOException {
+			if (mPosition + MAX_VARINT_BYTES > BUFFER_SIZE) {
+				mOut.write(mBuffer, 0, mPosition);
+				mPosition = 0;
+			}
+			while ((value & ~0x7f) != 0) {
+				mBuffer[mPosition++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			mBuffer[mPosition++] = (byte) value;
+		}
+
+		private static int zigzag(int value) {
+			return (value << 1) ^ (value >> 31);
+		}
+	}
+
+	/**
+	 * Hands everything written to it over to a background thread, which writes it to the wrapped
+	 * stream, so no I/O happens on the thread recording the touch events. Data is passed in pooled
+	 * chunks, only allocated while the background thread is behind. {@link #flush()} and
+	 * {@link #close()} don't wait either. Once writing failed, the wrapped stream is closed and every
+	 * further call throws.
+	 */
+	static final class BackgroundOutputStream extends OutputStream {
+		private static final int CHUNK_SIZE = 4096;
+
+		private static final class Chunk {
+			final byte[] data = new byte[CHUNK_SIZE];
+			int length;
+			boolean flush;
+			Chunk next;
+		}
+
+		private final OutputStream mOut;
+		private final Object mLock = new Object();
+		// Chunks waiting to be written, oldest first, and chunks free for reuse, linked through next.
+		private Chunk mQueueHead;
+		private Chunk mQueueTail;
+		private Chunk mFree;
+		private Chunk mCurrent;
+		private boolean mIsClosed;
+		private volatile IOException mFailure;
+
+		BackgroundOutputStream(OutputStream out) {
+			mOut = out;
+			final Thread thread = new Thread("SlidingUpPanel-trace") {
+				@Override
+				public void run() {
+					writeLoop();
+				}
+			};
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			thread.start();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			checkWritable();
+			if (mCurrent == null || mCurrent.length == CHUNK_SIZE) {
+				nextChunk();
+			}
+			mCurrent.data[mCurrent.length++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			checkWritable();
+			while (len > 0) {
+				if (mCurrent == null || mCurrent.length == CHUNK_SIZE) {
+					nextChunk();
+				}
+				final int count = Math.min(len, CHUNK_SIZE - mCurrent.length);
+				System.arraycopy(b, off, mCurrent.data, mCurrent.length, count);
+				mCurrent.length += count;
+				off += count;
+				len -= count;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			checkWritable();
+			if (mCurrent == null) {
+				mCurrent = obtainChunk();
+			}
+			mCurrent.flush = true;
+			enqueue(mCurrent);
+			mCurrent = null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			synchronized (mLock) {
+				if (mIsClosed) {
+					return;
+				}
+				if (mCurrent != null) {
+					addToQueue(mCurrent);
+					mCurrent = null;
+				}
+				mIsClosed = true;
+				mLock.notify();
+			}
+			checkFailure();
+		}
+
+		private void checkWritable() throws IOException {
+			if (mIsClosed) {
+				throw new IOException("Gesture trace stream closed");
+			}
+			checkFailure();
+		}
+
+		private void checkFailure() throws IOException {
+			final IOException failure = mFailure;
+			if (failure != null) {
+				final IOException e = new IOException("Writing the gesture trace failed");
+				e.initCause(failure);
+				throw e;
+			}
+		}
+
+		private void nextChunk() {
+			if (mCurrent != null) {
+				enqueue(mCurrent);
+			}
+			mCurrent = obtainChunk();
+		}
+
+		private Chunk obtainChunk() {
+			synchronized (mLock) {
+				final Chunk chunk = mFree;
+				if (chunk != null) {
+					mFree = chunk.next;
+					chunk.next = null;
+					return chunk;
+				}
+			}
+			return new Chunk();
+		}
+
+		private void enqueue(Chunk chunk) {
+			synchronized (mLock) {
+				addToQueue(chunk);
+				mLock.notify();
+			}
+		}
+
+		private void addToQueue(Chunk chunk) {
+			if (mQueueTail == null) {
+				mQueueHead = chunk;
+			} else {
+				mQueueTail.next = chunk;
+			}
+			mQueueTail = chunk;
+		}
+
+		private void writeLoop() {
+			try {
+				while (true) {
+					final Chunk chunk;
+					synchronized (mLock) {
+						while (mQueueHead == null && !mIsClosed) {
+							mLock.wait();
+						}
+						chunk = mQueueHead;
+						if (chunk != null) {
+							mQueueHead = chunk.next;
+							if (mQueueHead == null) {
+								mQueueTail = null;
+							}
+							chunk.next = null;
+						}
+					}
+					if (chunk == null) {
+						// Closed and drained.
+						mOut.close();
+						return;
+					}
+					if (chunk.length > 0) {
+						mOut.write(chunk.data, 0, chunk.length);
+					}
+					if (chunk.flush) {
+						mOut.flush();
+					}
+					chunk.length = 0;
+					chunk.flush = false;
+					synchronized (mLock) {
+						chunk.next = mFree;
+						mFree = chunk;
+					}
+				}
+			} catch (IOException e) {
+				mFailure = e;
+				closeQuietly();
+			} catch (InterruptedException e) {
+				mFailure = new IOException("Gesture trace writer interrupted");
+				closeQuietly();
+			}
+		}
+
+		private void closeQuietly() {
+			try {
+				mOut.close();
+			} catch (IOException ignored) {
+			}
+		}
+	}
+
+	/**
+	 * Reads a trace back one event at a time. The values of the current event are kept in reused
+	 * arrays, so reading doesn't allocate per event either. As a {@link PanelTouchPipeline.Event} it
+	 * feeds the touch handling of the panel directly.
+	 */
+	public static final class Reader implements PanelTouchPipeline.Event {
+		private final InputStream mIn;
+		private final int mWidth;
+		private final int mHeight;
+		private final int[] mLastX = new int[MAX_POINTERS];
+		private final int[] mLastY = new int[MAX_POINTERS];
+		private long mTime;
+
+		private int mAction;
+		private int mActionIndex;
+		private int mPointerCount;
+		private int mSampleCount;
+		private long[] mSampleTimes = new long[8];
+		private int[] mPointerIds = new int[MAX_POINTERS];
+		private float[] mXs = new float[8 * MAX_POINTERS];
+		private float[] mYs = new float[8 * MAX_POINTERS];
+
+		public Reader(InputStream in) throws IOException {
+			mIn = in;
+			if (readByte() != MAGIC_0 || readByte() != MAGIC_1 || readByte() != MAGIC_2
+					|| readByte() != MAGIC_3) {
+				throw new IOException("Not a SlidingUpPanel gesture trace");
+			}
+			final int version = readVarint();
+			if (version != VERSION) {
+				throw new IOException("Unsupported gesture trace version " + version);
+			}
+			mWidth = readVarint();
+			mHeight = readVarint();
+		}
+
+		/**
+		 * @return width of the panel when the trace was recorded.
+		 */
+		public int getWidth() {
+			return mWidth;
+		}
+
+		/**
+		 * @return height of the panel when the trace was recorded.
+		 */
+		public int getHeight() {
+			return mHeight;
+		}
+
+		/**
+		 * Read the next event.
+		 * 
+		 * @return false at the end of the trace.
+		 */
+		public boolean next() throws IOException {
+			final int action = mIn.read();
+			if (action < 0) {
+				return false;
+			}
+			mAction = action;
+			mActionIndex = readVarint();
+			mPointerCount = Math.min(readVarint(), MAX_POINTERS);
+			mSampleCount = readVarint() + 1;
+			if (mSampleTimes.length < mSampleCount) {
+				mSampleTimes = new long[mSampleCount];
+				mXs = new float[mSampleCount * MAX_POINTERS];
+				mYs = new float[mSampleCount * MAX_POINTERS];
+			}
+			for (int s = 0; s < mSampleCount; s++) {
+				mTime += unzigzag(readVarint());
+				mSampleTimes[s] = mTime;
+				for (int p = 0; p < mPointerCount; p++) {
+					final int id = readVarint();
+					final int slot = id & (MAX_POINTERS - 1);
+					mLastX[slot] += unzigzag(readVarint());
+					mLastY[slot] += unzigzag(readVarint());
+					mPointerIds[p] = id;
+					mXs[s * MAX_POINTERS + p] = mLastX[slot] / COORDINATE_SCALE;
+					mYs[s * MAX_POINTERS + p] = mLastY[slot] / COORDINATE_SCALE;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return masked action of the current event, e.g. MotionEvent.ACTION_MOVE.
+		 */
+		public int getAction() {
+			return mAction;
+		}
+
+		public int getActionIndex() {
+			return mActionIndex;
+		}
+
+		public int getPointerCount() {
+			return mPointerCount;
+		}
+
+		public int getPointerId(int pointerIndex) {
+			return mPointerIds[pointerIndex];
+		}
+
+		/**
+		 * @return number of samples of the current event, the historical ones first and the current
+		 *         one last.
+		 */
+		public int getSampleCount() {
+			return mSampleCount;
+		}
+
+		/**
+		 * @return time of a sample in milliseconds since the first event of the trace.
+		 */
+		public long getSampleTime(int sample) {
+			return mSampleTimes[sample];
+		}
+
+		public float getX(int sample, int pointerIndex) {
+			return mXs[sample * MAX_POINTERS + pointerIndex];
+		}
+
+		public float getY(int sample, int pointerIndex) {
+			return mYs[sample * MAX_POINTERS + pointerIndex];
+		}
+
+		public void close() throws IOException {
+			mIn.close();
+		}
+
+		private int readByte() throws IOException {
+			final int b = mIn.read();
+			if (b < 0) {
+				throw new EOFException("Truncated gesture trace");
+			}
+			return b;
+		}
+
+		private int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				final int b = readByte();
+				value |= (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed varint in gesture trace");
+		}
+
+		private static int unzigzag(int value) {
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+}
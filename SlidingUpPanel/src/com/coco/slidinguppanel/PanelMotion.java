@@ -0,0 +1,120 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Framework free drag & settle decision math of {@link SlidingUpPanel}, so it can be measured and
+ * tested without a device.
+ */
+final class PanelMotion {
+	static final int MAX_SETTLE_DURATION = 900; // ms
+
+	private static final float OPENED_THRESHOLD = 0.7f;
+	private static final float CLOSED_THRESHOLD = 0.3f;
+
+	private final int mMinimumVelocity;
+	private final int mFlingDistance;
+
+	PanelMotion(int minimumVelocity, int flingDistance) {
+		mMinimumVelocity = minimumVelocity;
+		mFlingDistance = flingDistance;
+	}
+
+	/**
+	 * Clamp the scroll position of a drag into [0, height].
+	 */
+	static float clampScroll(float scrollY, int height) {
+		if (scrollY > height) {
+			return height;
+		} else if (scrollY < 0) {
+			return 0;
+		}
+		return scrollY;
+	}
+
+	/**
+	 * Decide whether the panel should settle opened after the finger is released.
+	 * 
+	 * @param velocity
+	 *            release velocity in pixels per second, negative means moving up.
+	 * @param totalDelta
+	 *            total vertical distance of the gesture in pixels.
+	 */
+	boolean determineToOpen(int velocity, int totalDelta, int scrollY, int height, boolean isOpen) {
+		if (Math.abs(totalDelta) > mFlingDistance && Math.abs(velocity) > mMinimumVelocity) {
+			return velocity < 0;
+		}
+		final int deltaHeight;
+		if (isOpen) {
+			deltaHeight = (int) (height * OPENED_THRESHOLD);
+		} else {
+			deltaHeight = (int) (height * CLOSED_THRESHOLD);
+		}
+		return scrollY > deltaHeight;
+	}
+
+	/**
+	 * Compute the settle duration of a scroll of dy pixels in a panel of the given height.
+	 */
+	int computeSettleDuration(int dy, int height, int velocity) {
+		if (height <= 0) {
+			return 0;
+		}
+		final int halfHeight = height / 2;
+		final float distanceRatio = Math.min(1f, 1.0f * Math.abs(dy) / height);
+		final float distance = halfHeight + halfHeight *
+				distanceInfluenceForSnapDuration(distanceRatio);
+
+		velocity = Math.abs(velocity);
+		velocity = Math.max(velocity, mMinimumVelocity);
+		if (velocity == 0) {
+			return MAX_SETTLE_DURATION;
+		}
+		final int duration = 4 * Math.round(1000 * Math.abs(distance / velocity));
+		return Math.min(duration, MAX_SETTLE_DURATION);
+	}
+
+	/**
+	 * Exponential decay of a velocity, e.g. the momentum a caught fling keeps while it is held.
+	 * 
+	 * @param timeConstant
+	 *            milliseconds after which the velocity decayed to 1/e.
+	 */
+	static float decayVelocity(float velocity, long elapsedMillis, float timeConstant) {
+		if (elapsedMillis <= 0) {
+			return velocity;
+		}
+		return (float) (velocity * Math.exp(-elapsedMillis / timeConstant));
+	}
+
+	// We want the duration of the page snap animation to be influenced by the distance that
+	// the screen has to travel, however, we don't want this duration to be effected in a
+	// purely linear fashion. Instead, we use this method to moderate the effect that the distance
+	// of travel has on the overall snap duration.
+	static float distanceInfluenceForSnapDuration(float f) {
+		f -= 0.5f; // center the values about 0.
+		f *= 0.3f * Math.PI / 2.0f;
+		return (float) Math.sin(f);
+	}
+}
@@ -0,0 +1,105 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.content.Context;
+
+/**
+ * Shared motion state for many {@link SlidingUpPanel}s on one screen, e.g. panels inside list or
+ * pager items. Attached with {@link SlidingUpPanel#setMotionCoordinator(PanelMotionCoordinator)},
+ * the panels
+ * <ul>
+ * <li>run their settles from one frame callback, which only visits the panels that are moving, so
+ * the cost of a frame doesn't grow with the number of attached panels;</li>
+ * <li>share one velocity estimator;</li>
+ * <li>are dragged one at a time, a second panel can't start a drag while another one is held.</li>
+ * </ul>
+ * Must be used from the UI thread only.
+ */
+public final class PanelMotionCoordinator {
+	private final PanelFrameDispatcher mFrameDispatcher = new PanelFrameDispatcher();
+
+	private final PanelVelocityEstimator mVelocityEstimator = new PanelVelocityEstimator();
+	private SlidingUpPanel mVelocityOwner;
+	private SlidingUpPanel mDraggingPanel;
+
+	public PanelMotionCoordinator(Context context) {
+		mFrameDispatcher.setFrameScheduler(PanelFrameSchedulers.create(context, mFrameDispatcher));
+	}
+
+	/**
+	 * @return number of panels settling right now.
+	 */
+	public int getActivePanelCount() {
+		return mFrameDispatcher.getActiveCount();
+	}
+
+	/**
+	 * @return the panel being dragged, or null.
+	 */
+	public SlidingUpPanel getDraggingPanel() {
+		return mDraggingPanel;
+	}
+
+	PanelFrameScheduler createScheduler(PanelFrameScheduler.Callback callback) {
+		return mFrameDispatcher.createScheduler(callback);
+	}
+
+	boolean requestDrag(SlidingUpPanel panel) {
+		if (mDraggingPanel != null && mDraggingPanel != panel) {
+			return false;
+		}
+		mDraggingPanel = panel;
+		return true;
+	}
+
+	void releaseDrag(SlidingUpPanel panel) {
+		if (mDraggingPanel == panel) {
+			mDraggingPanel = null;
+		}
+	}
+
+	/**
+	 * @return the shared estimator, cleared first when it was tracking another panel.
+	 */
+	PanelVelocityEstimator obtainVelocityEstimator(SlidingUpPanel panel) {
+		if (mVelocityOwner != panel) {
+			mVelocityEstimator.clear();
+			mVelocityOwner = panel;
+		}
+		return mVelocityEstimator;
+	}
+
+	void clearVelocityEstimator(SlidingUpPanel panel) {
+		if (mVelocityOwner == panel) {
+			mVelocityEstimator.clear();
+			mVelocityOwner = null;
+		}
+	}
+
+	void onPanelDetached(SlidingUpPanel panel) {
+		releaseDrag(panel);
+		clearVelocityEstimator(panel);
+	}
+}
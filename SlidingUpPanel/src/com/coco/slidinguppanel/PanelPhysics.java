@@ -0,0 +1,50 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Physics model driving the settle of a {@link SlidingUpPanel}, see
+ * {@link SlidingUpPanel#setSettlePhysics(PanelPhysics)}. Positions are scroll positions in pixels,
+ * velocities are in pixels per second in the same direction.
+ * <p>
+ * Implementations keep the state of the running motion, so each panel needs its own instance.
+ */
+public interface PanelPhysics {
+	/**
+	 * Start a new motion from position with velocity, coming to rest at target.
+	 */
+	public void start(float position, float velocity, float target);
+
+	/**
+	 * Evaluate the motion at the given time since {@link #start(float, float, float)}. The result
+	 * must only depend on the time, not on how often this method is called.
+	 * 
+	 * @return false once the motion came to rest at its target.
+	 */
+	public boolean computeAt(long elapsedMillis);
+
+	public float getPosition();
+
+	public float getVelocity();
+}
@@ -0,0 +1,166 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+
+/**
+ * View properties bound to the panel offset through piecewise linear curves, all evaluated in one
+ * pass. A property is only set when its value changed, so a still panel costs nothing. Needs
+ * Android 3.0+ for the view property setters.
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB)
+final class PanelPropertyBindings {
+	private static final int INITIAL_CAPACITY = 4;
+
+	private View[] mTargets = new View[INITIAL_CAPACITY];
+	private int[] mProperties = new int[INITIAL_CAPACITY];
+	private float[][] mOffsets = new float[INITIAL_CAPACITY][];
+	private float[][] mValues = new float[INITIAL_CAPACITY][];
+	private float[] mLastValues = new float[INITIAL_CAPACITY];
+	private int mCount;
+
+	static boolean isSupported() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+	}
+
+	boolean isEmpty() {
+		return mCount == 0;
+	}
+
+	void add(View target, int property, float[] offsets, float[] values) {
+		if (target == null || offsets == null || values == null) {
+			throw new IllegalArgumentException("target, offsets and values must not be null");
+		}
+		if (offsets.length == 0 || offsets.length != values.length) {
+			throw new IllegalArgumentException("offsets and values must have the same, non zero length");
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			if (offsets[i] < offsets[i - 1]) {
+				throw new IllegalArgumentException("offsets must be in ascending order");
+			}
+		}
+		if (property < SlidingUpPanel.PROPERTY_ALPHA || property > SlidingUpPanel.PROPERTY_SCALE_Y) {
+			throw new IllegalArgumentException("Unknown property " + property);
+		}
+		if (mCount == mTargets.length) {
+			final int capacity = mCount * 2;
+			final View[] targets = new View[capacity];
+			final int[] properties = new int[capacity];
+			final float[][] offsetsArray = new float[capacity][];
+			final float[][] valuesArray = new float[capacity][];
+			final float[] lastValues = new float[capacity];
+			System.arraycopy(mTargets, 0, targets, 0, mCount);
+			System.arraycopy(mProperties, 0, properties, 0, mCount);
+			System.arraycopy(mOffsets, 0, offsetsArray, 0, mCount);
+			System.arraycopy(mValues, 0, valuesArray, 0, mCount);
+			System.arraycopy(mLastValues, 0, lastValues, 0, mCount);
+			mTargets = targets;
+			mProperties = properties;
+			mOffsets = offsetsArray;
+			mValues = valuesArray;
+			mLastValues = lastValues;
+		}
+		mTargets[mCount] = target;
+		mProperties[mCount] = property;
+		mOffsets[mCount] = offsets.clone();
+		mValues[mCount] = values.clone();
+		mLastValues[mCount] = Float.NaN;
+		mCount++;
+	}
+
+	void remove(View target) {
+		int kept = 0;
+		for (int i = 0; i < mCount; i++) {
+			if (mTargets[i] != target) {
+				mTargets[kept] = mTargets[i];
+				mProperties[kept] = mProperties[i];
+				mOffsets[kept] = mOffsets[i];
+				mValues[kept] = mValues[i];
+				mLastValues[kept] = mLastValues[i];
+				kept++;
+			}
+		}
+		for (int i = kept; i < mCount; i++) {
+			mTargets[i] = null;
+			mOffsets[i] = null;
+			mValues[i] = null;
+		}
+		mCount = kept;
+	}
+
+	/**
+	 * Evaluate every binding at offset and set the properties whose value changed.
+	 */
+	void apply(float offset) {
+		for (int i = 0; i < mCount; i++) {
+			final float value = evaluate(mOffsets[i], mValues[i], offset);
+			if (value == mLastValues[i]) {
+				continue;
+			}
+			mLastValues[i] = value;
+			final View target = mTargets[i];
+			switch (mProperties[i]) {
+			case SlidingUpPanel.PROPERTY_ALPHA:
+				target.setAlpha(value);
+				break;
+			case SlidingUpPanel.PROPERTY_TRANSLATION_X:
+				target.setTranslationX(value);
+				break;
+			case SlidingUpPanel.PROPERTY_TRANSLATION_Y:
+				target.setTranslationY(value);
+				break;
+			case SlidingUpPanel.PROPERTY_SCALE_X:
+				target.setScaleX(value);
+				break;
+			case SlidingUpPanel.PROPERTY_SCALE_Y:
+				target.setScaleY(value);
+				break;
+			}
+		}
+	}
+
+	static float evaluate(float[] offsets, float[] values, float offset) {
+		final int last = offsets.length - 1;
+		if (offset <= offsets[0]) {
+			return values[0];
+		}
+		if (offset >= offsets[last]) {
+			return values[last];
+		}
+		int i = 1;
+		while (offsets[i] < offset) {
+			i++;
+		}
+		final float start = offsets[i - 1];
+		final float range = offsets[i] - start;
+		if (range == 0) {
+			return values[i];
+		}
+		final float fraction = (offset - start) / range;
+		return values[i - 1] + fraction * (values[i] - values[i - 1]);
+	}
+}
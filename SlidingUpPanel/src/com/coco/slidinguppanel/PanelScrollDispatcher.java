@@ -0,0 +1,122 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import com.coco.slidinguppanel.SlidingUpPanel.OnPanelScrollListener;
+
+/**
+ * Registry of {@link OnPanelScrollListener}s, each with its own granularity. Dispatching walks plain
+ * arrays, so it doesn't allocate.
+ */
+final class PanelScrollDispatcher {
+	static final float DEFAULT_GRANULARITY = 0.009f;
+
+	private static final int INITIAL_CAPACITY = 2;
+
+	private OnPanelScrollListener[] mListeners = new OnPanelScrollListener[INITIAL_CAPACITY];
+	private float[] mGranularities = new float[INITIAL_CAPACITY];
+	private float[] mLastOffsets = new float[INITIAL_CAPACITY];
+	private int mCount;
+
+	boolean isEmpty() {
+		return mCount == 0;
+	}
+
+	void add(OnPanelScrollListener listener, float granularity, float currentOffset) {
+		if (listener == null) {
+			return;
+		}
+		final int index = indexOf(listener);
+		if (index >= 0) {
+			mGranularities[index] = granularity;
+			return;
+		}
+		if (mCount == mListeners.length) {
+			final int capacity = mCount * 2;
+			final OnPanelScrollListener[] listeners = new OnPanelScrollListener[capacity];
+			final float[] granularities = new float[capacity];
+			final float[] lastOffsets = new float[capacity];
+			System.arraycopy(mListeners, 0, listeners, 0, mCount);
+			System.arraycopy(mGranularities, 0, granularities, 0, mCount);
+			System.arraycopy(mLastOffsets, 0, lastOffsets, 0, mCount);
+			mListeners = listeners;
+			mGranularities = granularities;
+			mLastOffsets = lastOffsets;
+		}
+		mListeners[mCount] = listener;
+		mGranularities[mCount] = granularity;
+		mLastOffsets[mCount] = currentOffset;
+		mCount++;
+	}
+
+	void remove(OnPanelScrollListener listener) {
+		final int index = indexOf(listener);
+		if (index < 0) {
+			return;
+		}
+		final int moved = mCount - index - 1;
+		if (moved > 0) {
+			System.arraycopy(mListeners, index + 1, mListeners, index, moved);
+			System.arraycopy(mGranularities, index + 1, mGranularities, index, moved);
+			System.arraycopy(mLastOffsets, index + 1, mLastOffsets, index, moved);
+		}
+		mCount--;
+		mListeners[mCount] = null;
+	}
+
+	/**
+	 * Deliver offset to every listener it moved far enough for. The end points 0 and 1 are always
+	 * delivered, so listeners settle on the exact final value.
+	 */
+	void dispatch(float offset) {
+		for (int i = 0; i < mCount; i++) {
+			final float last = mLastOffsets[i];
+			if (last == offset) {
+				continue;
+			}
+			if (Math.abs(last - offset) > mGranularities[i] || offset == 0f || offset == 1f) {
+				mLastOffsets[i] = offset;
+				mListeners[i].onPanelScrolled(offset);
+			}
+		}
+	}
+
+	/**
+	 * Take offset as delivered to every listener without calling them.
+	 */
+	void resetOffsets(float offset) {
+		for (int i = 0; i < mCount; i++) {
+			mLastOffsets[i] = offset;
+		}
+	}
+
+	private int indexOf(OnPanelScrollListener listener) {
+		for (int i = 0; i < mCount; i++) {
+			if (mListeners[i] == listener) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
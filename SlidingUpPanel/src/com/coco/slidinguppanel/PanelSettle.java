@@ -0,0 +1,115 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.view.animation.Interpolator;
+
+/**
+ * Fixed duration settle of the panel evaluated at display frame times. The duration is rounded up
+ * to whole frames of the current refresh rate and time starts one frame before the first frame,
+ * so every frame moves, steps are even and the last frame lands exactly on the final position.
+ */
+final class PanelSettle {
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private Interpolator mInterpolator;
+	private int mStartY;
+	private int mFinalY;
+	private int mCurrY;
+	private long mDurationNanos;
+	private long mFrameIntervalNanos;
+	private long mStartTimeNanos;
+	private boolean mHasStartTime;
+	private boolean mIsFinished = true;
+
+	void start(int startY, int finalY, int duration, long frameIntervalNanos,
+			Interpolator interpolator) {
+		mInterpolator = interpolator;
+		mStartY = mCurrY = startY;
+		mFinalY = finalY;
+		mFrameIntervalNanos = frameIntervalNanos;
+		final long frames = Math.max(1,
+				(duration * NANOS_PER_MILLI + frameIntervalNanos - 1) / frameIntervalNanos);
+		mDurationNanos = frames * frameIntervalNanos;
+		mHasStartTime = false;
+		mIsFinished = false;
+	}
+
+	/**
+	 * Move to the position at the given frame time.
+	 * 
+	 * @return false once the final position is reached.
+	 */
+	boolean computeAt(long frameTimeNanos) {
+		if (mIsFinished) {
+			return false;
+		}
+		if (!mHasStartTime) {
+			mHasStartTime = true;
+			mStartTimeNanos = frameTimeNanos - mFrameIntervalNanos;
+		}
+		final long elapsed = frameTimeNanos - mStartTimeNanos;
+		if (elapsed >= mDurationNanos) {
+			finish();
+			return false;
+		}
+		final float fraction = mInterpolator.getInterpolation((float) elapsed / mDurationNanos);
+		mCurrY = mStartY + Math.round(fraction * (mFinalY - mStartY));
+		return true;
+	}
+
+	/**
+	 * Jump to the final position.
+	 */
+	void finish() {
+		mCurrY = mFinalY;
+		mIsFinished = true;
+	}
+
+	/**
+	 * Stop where the settle is now.
+	 */
+	void abort() {
+		mIsFinished = true;
+	}
+
+	boolean isFinished() {
+		return mIsFinished;
+	}
+
+	int getCurrY() {
+		return mCurrY;
+	}
+
+	int getFinalY() {
+		return mFinalY;
+	}
+
+	/**
+	 * @return planned duration in milliseconds after rounding to whole frames.
+	 */
+	int getDuration() {
+		return (int) (mDurationNanos / NANOS_PER_MILLI);
+	}
+}
@@ -0,0 +1,132 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * Bitmap snapshot of the panel's child, optionally downscaled, drawn instead of the live child while
+ * the panel moves. The bitmap is kept and reused as long as the child size doesn't change.
+ */
+final class PanelSnapshot {
+	private static final int BYTES_PER_PIXEL = 4;
+
+	private final Canvas mCanvas = new Canvas();
+	private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	private final Rect mDstRect = new Rect();
+	private Bitmap mBitmap;
+	private boolean mIsValid;
+
+	private float mScale = 1f;
+	private int mMemoryBudget;
+
+	void setScale(float scale) {
+		scale = Math.max(0.1f, Math.min(1f, scale));
+		if (mScale != scale) {
+			mScale = scale;
+			mIsValid = false;
+		}
+	}
+
+	void setMemoryBudget(int bytes) {
+		if (mMemoryBudget != bytes) {
+			mMemoryBudget = bytes;
+			mIsValid = false;
+		}
+	}
+
+	void invalidate() {
+		mIsValid = false;
+	}
+
+	boolean isValid() {
+		return mIsValid;
+	}
+
+	/**
+	 * Render child into the pooled bitmap.
+	 * 
+	 * @return false if the snapshot can't be taken and the live child has to be drawn instead.
+	 */
+	boolean capture(View child) {
+		mIsValid = false;
+		final int childWidth = child.getWidth();
+		final int childHeight = child.getHeight();
+		if (childWidth <= 0 || childHeight <= 0) {
+			return false;
+		}
+		float scale = mScale;
+		if (mMemoryBudget > 0) {
+			// Shrink the snapshot until it fits in the budget.
+			final float fullBytes = (float) childWidth * childHeight * BYTES_PER_PIXEL;
+			scale = Math.min(scale, (float) Math.sqrt(mMemoryBudget / fullBytes));
+		}
+		final int width = (int) (childWidth * scale);
+		final int height = (int) (childHeight * scale);
+		if (width <= 0 || height <= 0) {
+			return false;
+		}
+
+		if (mBitmap != null && (mBitmap.getWidth() != width || mBitmap.getHeight() != height)) {
+			release();
+		}
+		if (mBitmap == null) {
+			try {
+				mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+			} catch (OutOfMemoryError e) {
+				return false;
+			}
+			mCanvas.setBitmap(mBitmap);
+		} else {
+			mBitmap.eraseColor(0);
+		}
+
+		final int saveCount = mCanvas.save();
+		mCanvas.scale((float) width / childWidth, (float) height / childHeight);
+		child.draw(mCanvas);
+		mCanvas.restoreToCount(saveCount);
+		mIsValid = true;
+		return true;
+	}
+
+	/**
+	 * Draw the snapshot at the bounds of child.
+	 */
+	void draw(Canvas canvas, View child) {
+		mDstRect.set(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+		canvas.drawBitmap(mBitmap, null, mDstRect, mPaint);
+	}
+
+	void release() {
+		mIsValid = false;
+		if (mBitmap != null) {
+			mBitmap.recycle();
+			mBitmap = null;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.support.v4.view.MotionEventCompat;
+import android.view.MotionEvent;
+
+/**
+ * A {@link MotionEvent} seen as a {@link PanelTouchPipeline.Event}, reused for every event.
+ */
+final class PanelTouchEvent implements PanelTouchPipeline.Event {
+	private MotionEvent mEvent;
+
+	PanelTouchEvent set(MotionEvent ev) {
+		mEvent = ev;
+		return this;
+	}
+
+	@Override
+	public int getAction() {
+		return MotionEventCompat.getActionMasked(mEvent);
+	}
+
+	@Override
+	public int getActionIndex() {
+		return MotionEventCompat.getActionIndex(mEvent);
+	}
+
+	@Override
+	public int getPointerCount() {
+		return MotionEventCompat.getPointerCount(mEvent);
+	}
+
+	@Override
+	public int getPointerId(int pointerIndex) {
+		return MotionEventCompat.getPointerId(mEvent, pointerIndex);
+	}
+
+	@Override
+	public int getSampleCount() {
+		return mEvent.getHistorySize() + 1;
+	}
+
+	@Override
+	public long getSampleTime(int sample) {
+		return sample < mEvent.getHistorySize() ? mEvent.getHistoricalEventTime(sample)
+				: mEvent.getEventTime();
+	}
+
+	@Override
+	public float getX(int sample, int pointerIndex) {
+		if (sample < mEvent.getHistorySize()) {
+			// Only the first pointer has history before Android 2.0, which has no other pointers.
+			return pointerIndex == 0 ? mEvent.getHistoricalX(sample)
+					: mEvent.getHistoricalX(pointerIndex, sample);
+		}
+		return MotionEventCompat.getX(mEvent, pointerIndex);
+	}
+
+	@Override
+	public float getY(int sample, int pointerIndex) {
+		if (sample < mEvent.getHistorySize()) {
+			// Only the first pointer has history before Android 2.0, which has no other pointers.
+			return pointerIndex == 0 ? mEvent.getHistoricalY(sample)
+					: mEvent.getHistoricalY(pointerIndex, sample);
+		}
+		return MotionEventCompat.getY(mEvent, pointerIndex);
+	}
+}
@@ -0,0 +1,548 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Touch handling of {@link SlidingUpPanel}, framework free so recorded gestures replay through the
+ * very same code on the JVM. It decides which gestures the panel takes part in, intercepts past
+ * the touch slop, drags with optional prediction, estimates the velocity across a pointer hand-off,
+ * catches a running settle and decides between open and closed on release. The panel feeds it its
+ * touch events through {@link Event} and does the moving through {@link Host}. Allocates nothing
+ * per event.
+ */
+final class PanelTouchPipeline {
+	// Masked actions of android.view.MotionEvent.
+	static final int ACTION_DOWN = 0;
+	static final int ACTION_UP = 1;
+	static final int ACTION_MOVE = 2;
+	static final int ACTION_CANCEL = 3;
+	static final int ACTION_POINTER_DOWN = 5;
+	static final int ACTION_POINTER_UP = 6;
+
+	private static final int INVALID_POINTER = PanelVelocityEstimator.INVALID_POINTER;
+	private static final float CARRIED_VELOCITY_TIME_CONSTANT = 120f; // ms
+
+	/**
+	 * One touch event, with the position of every pointer at each of its samples: the historical
+	 * ones batched into the event first, the current one last.
+	 */
+	interface Event {
+		/**
+		 * @return the masked action, one of the ACTION_ constants.
+		 */
+		int getAction();
+
+		int getActionIndex();
+
+		int getPointerCount();
+
+		int getPointerId(int pointerIndex);
+
+		int getSampleCount();
+
+		/**
+		 * @return time of the sample in milliseconds.
+		 */
+		long getSampleTime(int sample);
+
+		float getX(int sample, int pointerIndex);
+
+		float getY(int sample, int pointerIndex);
+	}
+
+	/**
+	 * The panel as seen by the touch handling, called back on the thread the events are fed from.
+	 */
+	interface Host {
+		int getScrollY();
+
+		int getHeight();
+
+		/**
+		 * @return true while the panel rests opened, it can only be dragged from its drag region then.
+		 */
+		boolean isOpened();
+
+		/**
+		 * @return true while a settle runs, a touch down catches it.
+		 */
+		boolean isSettling();
+
+		/**
+		 * @return true if the panel is opened or settles to opened.
+		 */
+		boolean isOpen();
+
+		boolean hasDragHandle();
+
+		boolean isInDragHandle(float x, float y);
+
+		/**
+		 * @return true while a scrolling child drives the panel through nested scrolling.
+		 */
+		boolean isNestedScrolling();
+
+		/**
+		 * Claim the drag from the motion coordinator, if any.
+		 * 
+		 * @return false if another panel holds it.
+		 */
+		boolean requestDrag();
+
+		PanelVelocityEstimator obtainVelocityEstimator();
+
+		/**
+		 * @return velocity of the running settle in the direction of touch, 0 if it has none.
+		 */
+		float getSettleVelocity();
+
+		void abortSettle();
+
+		/**
+		 * Finish a running settle at its target right away.
+		 */
+		void completeSettle();
+
+		/**
+		 * A gesture went down on the panel.
+		 */
+		void onTouchDown();
+
+		/**
+		 * The gesture may turn into a drag once past the touch slop, get ready for it.
+		 */
+		void prewarmDrag();
+
+		/**
+		 * The panel is dragged from now on, it must take the gesture from its parent.
+		 */
+		void onDragStarted();
+
+		/**
+		 * Move the panel to follow the drag.
+		 */
+		void scrollTo(int scrollY);
+
+		/**
+		 * The finger was lifted from a drag, settle to toOpen.
+		 */
+		void onDragReleased(boolean toOpen, int velocity);
+
+		/**
+		 * The drag was canceled, settle to where the panel was heading.
+		 */
+		void onDragCanceled();
+
+		/**
+		 * The gesture is over, release what it held: the coordinator, the velocity estimator, a
+		 * pre-warmed layer.
+		 */
+		void onGestureEnded();
+	}
+
+	private final Host mHost;
+	private final PanelMotion mMotion;
+	private final int mTouchSlop;
+	private final int mMaximumVelocity;
+	private final int mMaxPredictionDistance;
+	private int mDragEdgeSize;
+	private int mDragPredictionHorizon;
+
+	private boolean mIsGestureIgnored;
+	private boolean mIsGestureInDragRegion;
+	private boolean mIsBeingDragged;
+	private boolean mIsUnableToDrag;
+	private float mLastMotionX;
+	private float mLastMotionY;
+	private float mInitialMotionX;
+	private float mInitialMotionY;
+	private int mActivePointerId = INVALID_POINTER;
+	private final PanelDragInput mDragInput = new PanelDragInput();
+	private int mDragPredictionOffset;
+	private float mCarriedVelocity;
+	private long mCarriedVelocityTime;
+
+	/**
+	 * @param touchSlop
+	 *            Distance in pixels the finger moves before a drag starts.
+	 * @param maximumVelocity
+	 *            Release velocities are clamped to this, in pixels per second.
+	 * @param maxPredictionDistance
+	 *            Farthest the drag is drawn ahead of the finger, in pixels.
+	 */
+	PanelTouchPipeline(Host host, PanelMotion motion, int touchSlop, int maximumVelocity,
+			int maxPredictionDistance) {
+		mHost = host;
+		mMotion = motion;
+		mTouchSlop = touchSlop;
+		mMaximumVelocity = maximumVelocity;
+		mMaxPredictionDistance = maxPredictionDistance;
+	}
+
+	void setDragEdgeSize(int size) {
+		mDragEdgeSize = Math.max(0, size);
+	}
+
+	void setDragPredictionHorizon(int horizon) {
+		mDragPredictionHorizon = Math.max(0, horizon);
+	}
+
+	int getDragPredictionHorizon() {
+		return mDragPredictionHorizon;
+	}
+
+	boolean isBeingDragged() {
+		return mIsBeingDragged;
+	}
+
+	boolean isUnableToDrag() {
+		return mIsUnableToDrag;
+	}
+
+	/**
+	 * @return true if the current gesture can't start a drag, so the panel leaves it alone.
+	 */
+	boolean isGestureIgnored() {
+		return mIsGestureIgnored;
+	}
+
+	/**
+	 * Decide at the down of each gesture whether the panel takes part in it at all.
+	 * 
+	 * @return true if the gesture can't start a drag, so the panel leaves it alone.
+	 */
+	boolean isGestureIgnored(Event ev) {
+		if (ev.getAction() == ACTION_DOWN) {
+			// The open panel is only dragged from its drag region, without one it can't be at all.
+			final int last = ev.getSampleCount() - 1;
+			final boolean opened = mHost.isOpened();
+			mIsGestureInDragRegion = opened && (mDragEdgeSize > 0 || mHost.hasDragHandle())
+					&& isInDragRegion(ev.getX(last, 0), ev.getY(last, 0));
+			mIsGestureIgnored = opened && !mIsGestureInDragRegion;
+		}
+		return mIsGestureIgnored;
+	}
+
+	private boolean isInDragRegion(float x, float y) {
+		return y < mDragEdgeSize || mHost.isInDragHandle(x, y);
+	}
+
+	/**
+	 * @return true to take the rest of the gesture from the children.
+	 */
+	boolean onInterceptTouchEvent(Event ev) {
+		// This method JUST determines whether we want to intercept the motion.
+		// If we return true, onTouchEvent will be called and we do the actual
+		// scrolling there.
+		final int action = ev.getAction();
+
+		// Always take care of the touch gesture being complete.
+		if (action == ACTION_CANCEL || action == ACTION_UP) {
+			// Release the drag.
+			endDrag();
+			return false;
+		}
+
+		if (mHost.isNestedScrolling()) {
+			// A scrolling child drives the panel through the nested scroll callbacks.
+			return false;
+		}
+
+		// Nothing more to do here if we have decided whether or not we are dragging.
+		if (action != ACTION_DOWN) {
+			if (mIsBeingDragged) {
+				return true;
+			}
+			if (mIsUnableToDrag) {
+				return false;
+			}
+		}
+
+		// Check whether the user has moved far enough from his original down touch.
+		switch (action) {
+		case ACTION_DOWN:
+			onTouchDown(ev, true);
+			break;
+		case ACTION_MOVE: {
+			if (mActivePointerId == INVALID_POINTER) {
+				// If we don't have a valid id, the touch down wasn't on content.
+				break;
+			}
+			final int pointerIndex = findPointerIndex(ev, mActivePointerId);
+			if (pointerIndex >= 0) {
+				onTouchMove(ev, pointerIndex);
+			}
+			break;
+		}
+		case ACTION_POINTER_UP:
+			onTouchPointerUp(ev);
+			break;
+		}
+
+		addVelocitySamples(ev);
+
+		// The only time we want to intercept motion events is if we are in the drag mode.
+		return mIsBeingDragged;
+	}
+
+	/**
+	 * @return false if the panel doesn't handle the gesture.
+	 */
+	boolean onTouchEvent(Event ev) {
+		if (mHost.isOpened() && !mIsGestureInDragRegion) {
+			// disable touch handle when in opened state.
+			return false;
+		}
+
+		final int action = ev.getAction();
+		final int last = ev.getSampleCount() - 1;
+
+		addVelocitySamples(ev);
+
+		switch (action) {
+		case ACTION_DOWN:
+			onTouchDown(ev, false);
+			break;
+		case ACTION_MOVE: {
+			if (mActivePointerId == INVALID_POINTER || mIsUnableToDrag) {
+				// If we don't have a valid id, the touch down wasn't on content.
+				break;
+			}
+			final int pointerIndex = findPointerIndex(ev, mActivePointerId);
+			if (pointerIndex >= 0) {
+				onTouchMove(ev, pointerIndex);
+			}
+			break;
+		}
+		case ACTION_UP:
+			if (mIsBeingDragged) {
+				// Decide and settle from where the finger is, not from the prediction.
+				dropDragPrediction();
+				// Add what is left of the momentum of a caught fling.
+				final float carriedVelocity = PanelMotion.decayVelocity(mCarriedVelocity,
+						ev.getSampleTime(last) - mCarriedVelocityTime, CARRIED_VELOCITY_TIME_CONSTANT);
+				final int initialVelocity = (int) Math.max(-mMaximumVelocity, Math.min(mMaximumVelocity,
+						mHost.obtainVelocityEstimator().getVelocity(mMaximumVelocity) + carriedVelocity));
+				final int pointerIndex = findPointerIndex(ev, mActivePointerId);
+				final float y = ev.getY(last, pointerIndex < 0 ? 0 : pointerIndex);
+				final int totalDelta = (int) (y - mInitialMotionY);
+				final boolean toOpen = mMotion.determineToOpen(initialVelocity, totalDelta,
+						mHost.getScrollY(), mHost.getHeight(), mHost.isOpen());
+				mHost.onDragReleased(toOpen, initialVelocity);
+				endDrag();
+			}
+			break;
+		case ACTION_CANCEL:
+			if (mIsBeingDragged) {
+				dropDragPrediction();
+				mHost.onDragCanceled();
+				endDrag();
+			}
+			break;
+		case ACTION_POINTER_DOWN: {
+			final int pointerIndex = ev.getActionIndex();
+			mLastMotionX = ev.getX(last, pointerIndex);
+			mLastMotionY = ev.getY(last, pointerIndex);
+			mActivePointerId = ev.getPointerId(pointerIndex);
+			mDragInput.reset();
+			break;
+		}
+		case ACTION_POINTER_UP:
+			onTouchPointerUp(ev);
+			break;
+		}
+
+		return true;
+	}
+
+	private void onTouchDown(Event ev, boolean intercept) {
+		// Remember location of down touch.
+		// ACTION_DOWN always refers to pointer index 0.
+		final int last = ev.getSampleCount() - 1;
+		mLastMotionX = mInitialMotionX = ev.getX(last, 0);
+		mLastMotionY = mInitialMotionY = ev.getY(last, 0);
+		mActivePointerId = ev.getPointerId(0);
+		mDragInput.reset();
+		mHost.onTouchDown();
+		if (intercept) {
+			mIsUnableToDrag = false;
+			if (mHost.isSettling() && mHost.requestDrag()) {
+				// Let the user 'catch' the panel as it animates.
+				mCarriedVelocity = mHost.getSettleVelocity();
+				mCarriedVelocityTime = ev.getSampleTime(last);
+				mHost.abortSettle();
+				mIsBeingDragged = true;
+				mHost.onDragStarted();
+			} else {
+				mHost.completeSettle();
+				mIsBeingDragged = false;
+				mHost.prewarmDrag();
+			}
+		} else {
+			mHost.abortSettle();
+		}
+	}
+
+	private void onTouchMove(Event ev, int pointerIndex) {
+		final int last = ev.getSampleCount() - 1;
+		final float x = ev.getX(last, pointerIndex);
+		final float y = ev.getY(last, pointerIndex);
+		if (mDragPredictionHorizon > 0) {
+			addDragSamples(ev, pointerIndex);
+		}
+		if (!mIsBeingDragged) {
+			final float xDiff = Math.abs(x - mInitialMotionX);
+			final float yDiff = Math.abs(y - mInitialMotionY);
+			final boolean isVerticalDrag = yDiff > mTouchSlop && yDiff * 0.5f > xDiff;
+			if (isVerticalDrag && !mHost.requestDrag()) {
+				// Another panel of the coordinator is held already.
+				mIsUnableToDrag = true;
+			} else if (isVerticalDrag) {
+				mIsBeingDragged = true;
+				mHost.onDragStarted();
+				mLastMotionX = x > mInitialMotionX ? mInitialMotionX + mTouchSlop :
+						mInitialMotionX - mTouchSlop;
+				mLastMotionY = y > mInitialMotionY ? mInitialMotionY + mTouchSlop :
+						mInitialMotionY - mTouchSlop;
+			} else if (xDiff > mTouchSlop) {
+				// The finger has moved enough in the horizontally
+				// direction to be counted as a drag... abort
+				// any attempt to drag vertical, to work correctly
+				// with children that have scrolling containers.
+				mIsUnableToDrag = true;
+			}
+		}
+		// Not else! Note that mIsBeingDragged can be set above.
+		if (mIsBeingDragged) {
+			// Scroll to follow the motion event
+			performDrag(x, y);
+		}
+	}
+
+	private void onTouchPointerUp(Event ev) {
+		final int pointerIndex = ev.getActionIndex();
+		final int pointerId = ev.getPointerId(pointerIndex);
+		if (pointerId == mActivePointerId) {
+			// This was our active pointer going up. Choose a new
+			// active pointer and adjust accordingly.
+			final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+			final int last = ev.getSampleCount() - 1;
+			mLastMotionX = ev.getX(last, newPointerIndex);
+			mLastMotionY = ev.getY(last, newPointerIndex);
+			mActivePointerId = ev.getPointerId(newPointerIndex);
+			mDragInput.reset();
+			// The velocity estimator carries on with the new pointer by itself.
+		}
+	}
+
+	/**
+	 * Add all samples of ev for the active pointer, the historical ones included. A change of the
+	 * active pointer continues the drag with the new pointer.
+	 */
+	private void addVelocitySamples(Event ev) {
+		final PanelVelocityEstimator estimator = mHost.obtainVelocityEstimator();
+		final int pointerId;
+		if (ev.getAction() == ACTION_DOWN) {
+			estimator.clear();
+			pointerId = ev.getPointerId(0);
+		} else {
+			pointerId = mActivePointerId;
+		}
+		final int pointerIndex = findPointerIndex(ev, pointerId);
+		if (pointerIndex < 0) {
+			return;
+		}
+		final int last = ev.getSampleCount() - 1;
+		if (pointerId != estimator.getPointerId()) {
+			final int previousIndex = findPointerIndex(ev, estimator.getPointerId());
+			estimator.handOff(pointerId, ev.getY(last, pointerIndex),
+					previousIndex >= 0 ? ev.getY(last, previousIndex) : Float.NaN);
+		}
+		for (int s = 0; s <= last; s++) {
+			estimator.addSample(ev.getSampleTime(s), ev.getY(s, pointerIndex));
+		}
+	}
+
+	private void addDragSamples(Event ev, int pointerIndex) {
+		for (int s = 0, count = ev.getSampleCount(); s < count; s++) {
+			mDragInput.addSample(ev.getSampleTime(s), ev.getY(s, pointerIndex));
+		}
+	}
+
+	private static int findPointerIndex(Event ev, int pointerId) {
+		if (pointerId == INVALID_POINTER) {
+			return -1;
+		}
+		for (int p = 0, count = ev.getPointerCount(); p < count; p++) {
+			if (ev.getPointerId(p) == pointerId) {
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	private void performDrag(float x, float y) {
+		// final float deltaX = mLastMotionX - x;
+		final float deltaY = mLastMotionY - y;
+		mLastMotionX = x;
+		mLastMotionY = y;
+
+		final int height = mHost.getHeight();
+		// Continue from the real position, not from the predicted one drawn last time.
+		final float scrollY = PanelMotion.clampScroll(mHost.getScrollY() - mDragPredictionOffset + deltaY,
+				height);
+		// Don't lose the rounded component
+		mLastMotionY += scrollY - (int) scrollY;
+		int drawnScrollY = (int) scrollY;
+		if (mDragPredictionHorizon > 0 && mDragInput.getSampleCount() > 1) {
+			final float predictedY = mDragInput.predict(mDragPredictionHorizon, mMaxPredictionDistance);
+			drawnScrollY = (int) PanelMotion.clampScroll(scrollY + y - predictedY, height);
+		}
+		mDragPredictionOffset = drawnScrollY - (int) scrollY;
+		mHost.scrollTo(drawnScrollY);
+	}
+
+	/**
+	 * Move the panel back to the real drag position, dropping the predicted part drawn ahead of it.
+	 */
+	private void dropDragPrediction() {
+		if (mDragPredictionOffset != 0) {
+			final int y = mHost.getScrollY() - mDragPredictionOffset;
+			mDragPredictionOffset = 0;
+			mHost.scrollTo(y);
+		}
+	}
+
+	/**
+	 * End the current gesture, dragged or not.
+	 */
+	void endDrag() {
+		dropDragPrediction();
+		mIsBeingDragged = false;
+		mIsUnableToDrag = false;
+		mActivePointerId = INVALID_POINTER;
+		mCarriedVelocity = 0;
+		mHost.onGestureEnded();
+	}
+}
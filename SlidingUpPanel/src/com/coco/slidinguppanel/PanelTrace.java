@@ -0,0 +1,95 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.os.Build;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Systrace sections around the panel internals. {@link android.os.Trace} is Android 4.3+ and newer
+ * than the SDK this library builds against, so it is called through reflection, with the argument
+ * arrays built once to not allocate per call. Does nothing on older versions.
+ */
+final class PanelTrace {
+	private static final String TAG = "PanelTrace";
+
+	static final Object[] INTERCEPT = section("SlidingUpPanel#intercept");
+	static final Object[] TOUCH = section("SlidingUpPanel#touch");
+	static final Object[] DRAG = section("SlidingUpPanel#drag");
+	static final Object[] MEASURE = section("SlidingUpPanel#measure");
+	static final Object[] LAYOUT = section("SlidingUpPanel#layout");
+	static final Object[] COMPUTE_SCROLL = section("SlidingUpPanel#computeScroll");
+	static final Object[] SETTLE_FRAME = section("SlidingUpPanel#settleFrame");
+	static final Object[] SET_STATE = section("SlidingUpPanel#setState");
+	static final Object[] INFLATE = section("SlidingUpPanel#inflate");
+
+	private static Method sBeginSection;
+	private static Method sEndSection;
+
+	static {
+		if (Build.VERSION.SDK_INT >= 18) {
+			try {
+				final Class<?> trace = Class.forName("android.os.Trace");
+				sBeginSection = trace.getMethod("beginSection", String.class);
+				sEndSection = trace.getMethod("endSection");
+			} catch (Exception e) {
+				Log.w(TAG, "android.os.Trace unavailable", e);
+				sBeginSection = null;
+				sEndSection = null;
+			}
+		}
+	}
+
+	private PanelTrace() {
+	}
+
+	private static Object[] section(String name) {
+		return new Object[] { name };
+	}
+
+	/**
+	 * Begin one of the sections above, must be balanced by {@link #endSection()} on the same thread.
+	 */
+	static void beginSection(Object[] section) {
+		if (sBeginSection != null) {
+			try {
+				sBeginSection.invoke(null, section);
+			} catch (Exception e) {
+				// Tracing is best effort, never break the panel for it.
+			}
+		}
+	}
+
+	static void endSection() {
+		if (sEndSection != null) {
+			try {
+				sEndSection.invoke(null, (Object[]) null);
+			} catch (Exception e) {
+				// Tracing is best effort, never break the panel for it.
+			}
+		}
+	}
+}
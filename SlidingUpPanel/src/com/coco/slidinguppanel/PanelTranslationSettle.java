@@ -0,0 +1,139 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Settle of the panel animated through the child's translationY by a {@link android.view.ViewPropertyAnimator}.
+ * Moving the child only changes a property of its display list, the panel doesn't scroll nor redraw
+ * per frame. The animator runs on the UI thread, the panel reads where it shows the child on each
+ * frame to report the offset, and the animator's end callback finishes the settle. Needs Android
+ * 3.1+.
+ */
+@TargetApi(Build.VERSION_CODES.HONEYCOMB_MR1)
+final class PanelTranslationSettle {
+
+	/**
+	 * Callback interface invoked on the UI thread when the settle animation reached its end.
+	 */
+	interface Callback {
+		void onTranslationSettleFinished(int scrollY);
+	}
+
+	private final Callback mCallback;
+	private View mChild;
+	private int mStartScrollY;
+	private int mFinalScrollY;
+	private boolean mIsRunning;
+
+	private final AnimatorListenerAdapter mAnimatorListener = new AnimatorListenerAdapter() {
+		@Override
+		public void onAnimationEnd(Animator animation) {
+			// Also called by cancel(), which stopped the settle already.
+			if (mIsRunning) {
+				finish();
+				mCallback.onTranslationSettleFinished(mFinalScrollY);
+			}
+		}
+	};
+
+	PanelTranslationSettle(Callback callback) {
+		mCallback = callback;
+	}
+
+	static boolean isSupported() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1;
+	}
+
+	boolean isRunning() {
+		return mIsRunning;
+	}
+
+	/**
+	 * Animate child so that the panel looks scrolled from startScrollY to finalScrollY, while the
+	 * real scroll position stays at startScrollY until the animation finished.
+	 */
+	void start(View child, int startScrollY, int finalScrollY, int duration, Interpolator interpolator) {
+		mChild = child;
+		mStartScrollY = startScrollY;
+		mFinalScrollY = finalScrollY;
+		mIsRunning = true;
+		child.setTranslationY(0);
+		child.animate()
+				.translationY(startScrollY - finalScrollY)
+				.setDuration(duration)
+				.setInterpolator(interpolator)
+				.setListener(mAnimatorListener)
+				.start();
+	}
+
+	int getFinalScrollY() {
+		return mFinalScrollY;
+	}
+
+	/**
+	 * @return the scroll position the panel is displayed at, from the child's current translation.
+	 */
+	int getCurrentScrollY() {
+		if (!mIsRunning) {
+			return mFinalScrollY;
+		}
+		return mStartScrollY - Math.round(mChild.getTranslationY());
+	}
+
+	/**
+	 * Stop the animation where it is.
+	 * 
+	 * @return the scroll position the panel should jump to, to show the child where it was.
+	 */
+	int cancel() {
+		final int scrollY = getCurrentScrollY();
+		stop();
+		return scrollY;
+	}
+
+	/**
+	 * Jump to the end of the animation.
+	 * 
+	 * @return the scroll position the panel should jump to, its final one.
+	 */
+	int finish() {
+		stop();
+		return mFinalScrollY;
+	}
+
+	private void stop() {
+		mIsRunning = false;
+		mChild.animate().cancel();
+		// The listener stays set on the view's animator, don't leave it to the app's animations.
+		mChild.animate().setListener(null);
+		mChild.setTranslationY(0);
+	}
+}
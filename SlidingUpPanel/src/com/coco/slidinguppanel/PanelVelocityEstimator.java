@@ -0,0 +1,133 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Vertical velocity of a drag, from a least squares fit of the recent touch samples kept in a fixed
+ * primitive ring buffer. Unlike {@link android.view.VelocityTracker}, it follows the drag across a
+ * hand-off of the active pointer: positions of the new pointer are shifted to continue where the
+ * old one was, so lifting the first of two fingers doesn't lose the velocity. Framework free, the
+ * panel feeds it the samples of each touch event.
+ */
+final class PanelVelocityEstimator {
+	private static final int CAPACITY = 20;
+	private static final long HORIZON = 100; // ms
+	// A pause this long between two samples means the finger stopped.
+	private static final long ASSUME_STOPPED = 40; // ms
+	static final int INVALID_POINTER = -1;
+
+	private final long[] mTimes = new long[CAPACITY];
+	private final float[] mPositions = new float[CAPACITY];
+	private int mHead = -1;
+	private int mCount;
+
+	private int mPointerId = INVALID_POINTER;
+	private float mOffset;
+
+	void clear() {
+		mHead = -1;
+		mCount = 0;
+		mPointerId = INVALID_POINTER;
+		mOffset = 0f;
+	}
+
+	/**
+	 * @return the pointer the samples are from, or {@link #INVALID_POINTER} before the first one.
+	 */
+	int getPointerId() {
+		return mPointerId;
+	}
+
+	/**
+	 * Continue the drag with another pointer now at y.
+	 * 
+	 * @param previousY
+	 *            Position of the previous pointer in the same event, or NaN when it is gone, to
+	 *            continue from the newest sample.
+	 */
+	void handOff(int pointerId, float y, float previousY) {
+		final float anchor;
+		if (mPointerId != INVALID_POINTER && !Float.isNaN(previousY)) {
+			anchor = previousY + mOffset;
+		} else {
+			anchor = mCount > 0 ? mPositions[mHead] : y;
+		}
+		mPointerId = pointerId;
+		mOffset = anchor - y;
+	}
+
+	/**
+	 * Add a raw position of the current pointer, at time in milliseconds.
+	 */
+	void addSample(long time, float y) {
+		if (mCount > 0 && time < mTimes[mHead]) {
+			// Out of order sample, e.g. from a new gesture, start over.
+			mHead = -1;
+			mCount = 0;
+		}
+		mHead = (mHead + 1) % CAPACITY;
+		mTimes[mHead] = time;
+		mPositions[mHead] = y + mOffset;
+		if (mCount < CAPACITY) {
+			mCount++;
+		}
+	}
+
+	/**
+	 * @return velocity in pixels per second, clamped to [-maxVelocity, maxVelocity], 0 when the
+	 *         finger rested before the newest sample.
+	 */
+	float getVelocity(float maxVelocity) {
+		if (mCount < 2) {
+			return 0f;
+		}
+		final long newestTime = mTimes[mHead];
+		final float newest = mPositions[mHead];
+		// Fit position = a + b * time on the samples since the finger last rested.
+		double sumT = 0, sumP = 0, sumTT = 0, sumTP = 0;
+		int n = 0;
+		long previousTime = newestTime;
+		for (int i = 0, index = mHead; i < mCount; i++) {
+			final long time = mTimes[index];
+			if (newestTime - time > HORIZON || previousTime - time > ASSUME_STOPPED) {
+				break;
+			}
+			previousTime = time;
+			final long t = time - newestTime;
+			final double p = mPositions[index] - newest;
+			sumT += t;
+			sumP += p;
+			sumTT += (double) t * t;
+			sumTP += t * p;
+			n++;
+			index = index == 0 ? CAPACITY - 1 : index - 1;
+		}
+		final double denominator = n * sumTT - sumT * sumT;
+		if (n < 2 || denominator == 0) {
+			return 0f;
+		}
+		final double velocity = (n * sumTP - sumT * sumP) / denominator * 1000; // px per s
+		return (float) Math.max(-maxVelocity, Math.min(maxVelocity, velocity));
+	}
+}
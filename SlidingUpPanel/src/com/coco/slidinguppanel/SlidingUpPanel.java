@@ -24,22 +24,30 @@ package com.coco.slidinguppanel;
  */
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.view.MotionEventCompat;
-import android.support.v4.view.VelocityTrackerCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewConfigurationCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 import android.view.animation.BounceInterpolator;
-import android.widget.Scroller;
+import android.view.animation.Interpolator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 
 /**
  * Zaker style sliding up panel, using as zaker's cover.
@@ -47,19 +55,23 @@ import android.widget.Scroller;
 public class SlidingUpPanel extends ViewGroup {
 	private static final String TAG = "SlidingUpPanel";
 	private static final boolean DEBUG = false;
-	private static final boolean USE_CACHE = false;
 
+	// Call sites building the message must be guarded by if (DEBUG), otherwise the string is
+	// concatenated on every touch event even though nothing is logged.
 	private static void DEBUG_LOG(String msg) {
 		if (DEBUG) {
 			Log.v(TAG, msg);
 		}
 	}
 
-	private static final int MAX_SETTLE_DURATION = 900; // ms
 	private static final int MIN_DISTANCE_FOR_FLING = 25; // dips
 	private static final int MIN_FLING_VELOCITY = 400; // dips
+	private static final int MAX_PREDICTION_DISTANCE = 24; // dips
+
+	// View.SCROLL_AXIS_VERTICAL, Android 5.0+
+	private static final int NESTED_SCROLL_AXIS_VERTICAL = 1 << 1;
 
-	private static final int INVALID_POINTER = -1;
+	private static final Interpolator sBounceInterpolator = new BounceInterpolator();
 
 	// states
 	public static final int STATE_CLOSED = 0;
@@ -67,22 +79,51 @@ public class SlidingUpPanel extends ViewGroup {
 	public static final int STATE_DRAGGING = 2;
 	public static final int STATE_FLING = 3;
 
+	// move modes
+	public static final int MOVE_MODE_SCROLL = 0;
+	public static final int MOVE_MODE_TRANSLATION = 1;
+
+	// layer states
+	public static final int LAYER_STATE_NONE = 0;
+	public static final int LAYER_STATE_PREWARMED = 1;
+	public static final int LAYER_STATE_ACTIVE = 2;
+	public static final int LAYER_STATE_KEEP_ALIVE = 3;
+
+	// bindable view properties
+	public static final int PROPERTY_ALPHA = 0;
+	public static final int PROPERTY_TRANSLATION_X = 1;
+	public static final int PROPERTY_TRANSLATION_Y = 2;
+	public static final int PROPERTY_SCALE_X = 3;
+	public static final int PROPERTY_SCALE_Y = 4;
+
+	// low fidelity policies
+	public static final int FIDELITY_POLICY_NONE = 0;
+	public static final int FIDELITY_POLICY_ALWAYS = 1;
+	public static final int FIDELITY_POLICY_ADAPTIVE = 2;
+
+	private static final int RESTORE_FIDELITY_DELAY = 250; // ms
+
 	// fling
-	private Scroller mScroller;
-	private VelocityTracker mVelocityTracker;
-	private int mMinimumVelocity;
+	private PanelSettle mSettle;
+	private PanelFrameScheduler mFrameScheduler;
+	private PanelMotionCoordinator mCoordinator;
+	private Interpolator mInterpolator;
+	private int mMoveMode = MOVE_MODE_SCROLL;
+	private PanelTranslationSettle mTranslationSettle;
+	private PanelPhysics mPhysics;
+	private boolean mIsPhysicsRunning;
+	private long mPhysicsStartTimeNanos;
+	private boolean mHasPhysicsStartTime;
+	private int mPhysicsTargetY;
+	private final PanelVelocityEstimator mVelocityEstimator = new PanelVelocityEstimator();
 	private int mMaximumVelocity;
-	private int mFlingDistance;
+	private PanelMotion mMotion;
 
 	// dragging
-	private int mTouchSlop;
-	private boolean mIsBeingDragged;
-	private boolean mIsUnableToDrag;
-	private float mLastMotionX;
-	private float mLastMotionY;
-	private float mInitialMotionX;
-	private float mInitialMotionY;
-	private int mActivePointerId = INVALID_POINTER;
+	private PanelTouchPipeline mTouchPipeline;
+	private final PanelTouchEvent mTouchEvent = new PanelTouchEvent();
+	private View mDragHandle;
+	private final int[] mTempLocation = new int[2];
 
 	// state & listener
 	private int mState = STATE_CLOSED;
@@ -90,153 +131,1603 @@ public class SlidingUpPanel extends ViewGroup {
 	private OnPanelCloseListener mOnPanelCloseListener;
 	private OnPanelOpenListener mOnPanelOpenListener;
 	private OnPanelScrollListener mOnPanelScrollListener;
-	private float mLastPanelScrolledOffset;
+	private final PanelScrollDispatcher mScrollDispatcher = new PanelScrollDispatcher();
+	private float mPendingScrollOffset;
+	private boolean mIsScrollDispatchPending;
+	private boolean mIsInSettleFrame;
+	private boolean mHasSettleFrameScroll;
+
+	// frame metrics
+	private PanelFrameMetrics mFrameMetrics;
+	private OnPanelFrameMetricsListener mOnPanelFrameMetricsListener;
+
+	// hardware layer
+	private int mLayerState = LAYER_STATE_NONE;
+	private boolean mLayerPrewarmEnabled;
+	private int mLayerKeepAliveDuration;
+	private int mLayerMemoryBudget;
+	private OnPanelLayerStateListener mOnPanelLayerStateListener;
+
+	// restore
+	private boolean mHasPendingRestore;
+	private float mRestoredOffset;
+	private OnPanelRestoreListener mOnPanelRestoreListener;
+
+	// occlusion
+	private boolean mCoverOpaque;
+	private boolean mIsBackgroundOccluded;
+	private boolean mIsCoverVisible = true;
+	private final ArrayList<View> mOccludedViews = new ArrayList<View>();
+	// Visibility of each occluded view before the panel hid it.
+	private int[] mOccludedVisibilities = new int[4];
+	private OnPanelVisibilityListener mOnPanelVisibilityListener;
+
+	// property bindings
+	private PanelPropertyBindings mPropertyBindings;
+	private float mBindingOffset;
+	private boolean mBindingsDirty;
+
+	// low fidelity
+	private int mFidelityPolicy = FIDELITY_POLICY_NONE;
+	private PanelFidelity mFidelity;
+	private long mSlowFrameNanos;
+	private final ArrayList<OnPanelFidelityListener> mFidelityListeners =
+			new ArrayList<OnPanelFidelityListener>();
+
+	// diagnostics
+	private final PanelEventLog mEventLog = new PanelEventLog();
+
+	// gesture recording
+	private PanelGestureTrace.Writer mGestureWriter;
+
+	// layout
+	private int mLayoutHeight;
+	private int mLazyChildLayout;
+	private ChildFactory mLazyChildFactory;
+	private int mAsyncChildLayout;
+	private PanelAsyncInflater mAsyncInflater;
+	private Drawable mPlaceholder;
+
+	// drawing cache
+	private boolean mScrollingCacheEnabled;
+	private boolean mSnapshotEnabled;
+	private PanelSnapshot mSnapshot;
+
+	// programmatic animation
+	private boolean mHasPendingAnimation;
+	private boolean mIsAnimationPosted;
+	private float mPendingAnimationOffset;
+	private int mPendingAnimationDuration;
+	private Interpolator mPendingAnimationInterpolator;
+	private float mPendingOffset = -1f;
+
+	// nested scrolling
+	private boolean mIsNestedScrolling;
+	private int mNestedScrollAxes;
+	private boolean mIsNestedDragging;
+	private int mNestedDragTotal;
+
+	private final Runnable mEndScrollRunnable = new Runnable() {
+		public void run() {
+			setState(mIsOpen ? STATE_OPENED : STATE_CLOSED);
+		}
+	};
+
+	private final Runnable mStartAnimationRunnable = new Runnable() {
+		public void run() {
+			mIsAnimationPosted = false;
+			if (mHasPendingAnimation) {
+				mHasPendingAnimation = false;
+				startAnimation(mPendingAnimationOffset, mPendingAnimationDuration,
+						mPendingAnimationInterpolator);
+				mPendingAnimationInterpolator = null;
+			}
+		}
+	};
+
+	private final Runnable mReleaseLayerRunnable = new Runnable() {
+		public void run() {
+			setLayerState(LAYER_STATE_NONE);
+		}
+	};
+
+	private final Runnable mRestoreFidelityRunnable = new Runnable() {
+		public void run() {
+			if (mFidelity != null && mFidelity.setLowFidelity(false)) {
+				dispatchFidelityChanged(false);
+			}
+		}
+	};
+
+	private final PanelAsyncInflater.Callback mAsyncInflaterCallback = new PanelAsyncInflater.Callback() {
+		@Override
+		public void onChildInflated(View child) {
+			mAsyncInflater = null;
+			mAsyncChildLayout = 0;
+			// Laid out and drawn in the same frame, so the placeholder is replaced without a gap.
+			addChild(child, false);
+			mPlaceholder = null;
+			updateVisibilityState();
+		}
+	};
+
+	private final PanelTranslationSettle.Callback mTranslationSettleCallback =
+			new PanelTranslationSettle.Callback() {
+				@Override
+				public void onTranslationSettleFinished(int scrollY) {
+					mFrameScheduler.cancelFrame();
+					scrollTo(getScrollX(), scrollY);
+					onPanelScrolled(scrollY);
+					mEndScrollRunnable.run();
+				}
+			};
+
+	private final PanelFrameScheduler.Callback mSettleFrameCallback =
+			new PanelFrameScheduler.Callback() {
+				@Override
+				public void doFrame(long frameTimeNanos) {
+					onSettleFrame(frameTimeNanos);
+				}
+			};
+
+	private final PanelTouchPipeline.Host mTouchHost = new PanelTouchPipeline.Host() {
+		@Override
+		public int getScrollY() {
+			return SlidingUpPanel.this.getScrollY();
+		}
+
+		@Override
+		public int getHeight() {
+			return SlidingUpPanel.this.getHeight();
+		}
+
+		@Override
+		public boolean isOpened() {
+			return getState() == STATE_OPENED;
+		}
+
+		@Override
+		public boolean isSettling() {
+			return getState() == STATE_FLING;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return SlidingUpPanel.this.isOpen();
+		}
+
+		@Override
+		public boolean hasDragHandle() {
+			return mDragHandle != null;
+		}
+
+		@Override
+		public boolean isInDragHandle(float x, float y) {
+			return SlidingUpPanel.this.isInDragHandle(x, y);
+		}
+
+		@Override
+		public boolean isNestedScrolling() {
+			return mIsNestedScrolling;
+		}
+
+		@Override
+		public boolean requestDrag() {
+			return canStartDrag();
+		}
+
+		@Override
+		public PanelVelocityEstimator obtainVelocityEstimator() {
+			return SlidingUpPanel.this.obtainVelocityEstimator();
+		}
+
+		@Override
+		public float getSettleVelocity() {
+			// Touch velocity points the other way than scrolling.
+			return mIsPhysicsRunning ? -mPhysics.getVelocity() : 0;
+		}
+
+		@Override
+		public void abortSettle() {
+			SlidingUpPanel.this.abortSettle();
+		}
+
+		@Override
+		public void completeSettle() {
+			completeScroll(false);
+		}
+
+		@Override
+		public void onTouchDown() {
+			mEventLog.log(PanelEventLog.EVENT_TOUCH_DOWN, getScrollY(), 0f, mState);
+		}
+
+		@Override
+		public void prewarmDrag() {
+			if (mLayerPrewarmEnabled && getState() == STATE_CLOSED) {
+				acquireLayer(LAYER_STATE_PREWARMED);
+			}
+		}
+
+		@Override
+		public void onDragStarted() {
+			// Have the child added before the drag moves it in.
+			ensureLazyChild(false);
+			requestParentDisallowInterceptTouchEvent(true);
+			setState(STATE_DRAGGING);
+		}
+
+		@Override
+		public void scrollTo(int scrollY) {
+			PanelTrace.beginSection(PanelTrace.DRAG);
+			try {
+				SlidingUpPanel.this.scrollTo(getScrollX(), scrollY);
+				onPanelScrolled(scrollY);
+			} finally {
+				PanelTrace.endSection();
+			}
+		}
+
+		@Override
+		public void onDragReleased(boolean toOpen, int velocity) {
+			mEventLog.log(PanelEventLog.EVENT_TOUCH_UP, getScrollY(), velocity, mState);
+			startFling(toOpen, velocity);
+		}
+
+		@Override
+		public void onDragCanceled() {
+			mEventLog.log(PanelEventLog.EVENT_TOUCH_CANCEL, getScrollY(), 0f, mState);
+			startFling(SlidingUpPanel.this.isOpen(), 0);
+		}
+
+		@Override
+		public void onGestureEnded() {
+			if (mLayerState == LAYER_STATE_PREWARMED) {
+				// The touch slop was never crossed.
+				releaseLayer();
+			}
+			clearVelocityEstimator();
+			if (mCoordinator != null && !mIsNestedDragging) {
+				// A nested drag still holds the panel until its fling or stop.
+				mCoordinator.releaseDrag(SlidingUpPanel.this);
+			}
+		}
+	};
+
+	private final Runnable mDispatchScrollRunnable = new Runnable() {
+		public void run() {
+			mIsScrollDispatchPending = false;
+			mScrollDispatcher.dispatch(mPendingScrollOffset);
+		}
+	};
+
+	private final ViewTreeObserver.OnPreDrawListener mApplyBindingsListener =
+			new ViewTreeObserver.OnPreDrawListener() {
+				@Override
+				public boolean onPreDraw() {
+					if (mBindingsDirty) {
+						// Once per frame, right before drawing, so bound views never lag the panel.
+						mBindingsDirty = false;
+						mPropertyBindings.apply(mBindingOffset);
+					}
+					return true;
+				}
+			};
+
+	/**
+	 * Callback interface for responding to fidelity changes of the panel content, implemented by
+	 * children which can render cheaper while the panel moves.
+	 */
+	public interface OnPanelFidelityListener {
+		/**
+		 * This method will be invoked when the content should switch to cheap rendering (lower
+		 * resolution images, no shadows or blurs), or back to full fidelity.
+		 * 
+		 * @param lowFidelity
+		 *            true to render cheaply, false to render at full fidelity again.
+		 */
+		public void onPanelFidelityChanged(boolean lowFidelity);
+	}
+
+	/**
+	 * Factory interface for creating the child of the panel when it is first needed.
+	 */
+	public interface ChildFactory {
+		/**
+		 * @return the child to add to the panel, it gets default layout params if it has none.
+		 */
+		public View createChild(SlidingUpPanel panel);
+	}
+
+	/**
+	 * Callback interface for responding to the open state of the sliding up panel.
+	 */
+	public interface OnPanelOpenListener {
+		public void onPanelOpened();
+	}
+
+	/**
+	 * Callback interface for responding to the close state of the sliding up panel.
+	 */
+	public interface OnPanelCloseListener {
+		public void onPanelClosed();
+	}
+
+	/**
+	 * Callback interface for responding to scrolling of the panel.
+	 */
+	public interface OnPanelScrollListener {
+		/**
+		 * This method will be invoked when the panel is scrolled.
+		 * 
+		 * @param offset
+		 *            Value from [0, 1] indicating the offset of the scrolling panel.
+		 */
+		public void onPanelScrolled(float offset);
+	}
+
+	/**
+	 * Callback interface for receiving frame timing of every drag and fling of the panel.
+	 */
+	public interface OnPanelFrameMetricsListener {
+		/**
+		 * This method will be invoked when a drag or fling of the panel is finished.
+		 * 
+		 * @param metrics
+		 *            Frame timing of the finished gesture, only valid during this call.
+		 */
+		public void onPanelFrameMetrics(PanelFrameMetrics metrics);
+	}
+
+	/**
+	 * Callback interface for responding to hardware layer changes of the panel's child.
+	 */
+	public interface OnPanelLayerStateListener {
+		/**
+		 * This method will be invoked when the layer state of the panel changed.
+		 * 
+		 * @param layerState
+		 *            One of the LAYER_STATE_* constants.
+		 */
+		public void onPanelLayerStateChanged(int layerState);
+	}
+
+	/**
+	 * Callback interface for responding to the panel being restored from a saved instance state.
+	 */
+	public interface OnPanelRestoreListener {
+		/**
+		 * This method will be invoked once the panel landed on its restored position, instead of
+		 * open or close callbacks.
+		 * 
+		 * @param isOpen
+		 *            Whether the panel was restored opened.
+		 * @param offset
+		 *            Value from [0, 1] indicating the restored offset of the panel.
+		 */
+		public void onPanelRestored(boolean isOpen, float offset);
+	}
+
+	/**
+	 * Callback interface for responding to what is actually visible on screen, e.g. to pause
+	 * animations of content which isn't.
+	 */
+	public interface OnPanelVisibilityListener {
+		/**
+		 * This method will be invoked when the content behind the panel becomes fully covered by an
+		 * opaque closed panel, or uncovered again.
+		 */
+		public void onPanelBackgroundOccluded(boolean occluded);
+
+		/**
+		 * This method will be invoked when the panel's child is scrolled fully out of the panel, or
+		 * comes back in.
+		 */
+		public void onPanelCoverVisibilityChanged(boolean visible);
+	}
+
+	public SlidingUpPanel(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		initSlidingUpPanel();
+	}
+
+	public SlidingUpPanel(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		initSlidingUpPanel();
+	}
+
+	public SlidingUpPanel(Context context) {
+		super(context);
+		initSlidingUpPanel();
+	}
+
+	private void initSlidingUpPanel() {
+		setWillNotDraw(false);
+		setDescendantFocusability(FOCUS_AFTER_DESCENDANTS);
+		setFocusable(true);
+
+		final Context context = getContext();
+		final ViewConfiguration configuration = ViewConfiguration.get(context);
+		final float density = context.getResources().getDisplayMetrics().density;
+
+		// Stateless, so all panels share one.
+		mInterpolator = sBounceInterpolator;
+		mSettle = new PanelSettle();
+		mFrameScheduler = PanelFrameSchedulers.create(this, mSettleFrameCallback);
+		mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+		mMotion = new PanelMotion((int) (MIN_FLING_VELOCITY * density),
+				(int) (MIN_DISTANCE_FOR_FLING * density));
+		mTouchPipeline = new PanelTouchPipeline(mTouchHost, mMotion,
+				ViewConfigurationCompat.getScaledPagingTouchSlop(configuration), mMaximumVelocity,
+				(int) (MAX_PREDICTION_DISTANCE * density));
+	}
+
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		if (mPropertyBindings != null) {
+			getViewTreeObserver().addOnPreDrawListener(mApplyBindingsListener);
+		}
+		if (mAsyncChildLayout != 0 && mAsyncInflater == null) {
+			// Canceled by an earlier detach.
+			startAsyncInflater();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mPropertyBindings != null) {
+			getViewTreeObserver().removeOnPreDrawListener(mApplyBindingsListener);
+		}
+		// Frame callbacks don't stop with the window, land the settle right away.
+		completeScroll(false);
+		mFrameScheduler.cancelFrame();
+		removeCallbacks(mEndScrollRunnable);
+		removeCallbacks(mStartAnimationRunnable);
+		mIsAnimationPosted = false;
+		mHasPendingAnimation = false;
+		removeCallbacks(mDispatchScrollRunnable);
+		mIsScrollDispatchPending = false;
+		mHasSettleFrameScroll = false;
+		removeCallbacks(mReleaseLayerRunnable);
+		setLayerState(LAYER_STATE_NONE);
+		removeCallbacks(mRestoreFidelityRunnable);
+		mRestoreFidelityRunnable.run();
+		if (mSnapshot != null) {
+			mSnapshot.release();
+		}
+		if (mAsyncInflater != null) {
+			// Don't add the child to a detached panel, nor keep it alive until the inflate ends.
+			mAsyncInflater.cancel();
+			mAsyncInflater = null;
+		}
+		mIsNestedScrolling = false;
+		mIsNestedDragging = false;
+		if (mCoordinator != null) {
+			mCoordinator.onPanelDetached(this);
+		}
+		super.onDetachedFromWindow();
+	}
+
+	protected int getState() {
+		return mState;
+	}
+
+	protected void setState(int newState) {
+		if (mState == newState) {
+			return;
+		}
+
+		PanelTrace.beginSection(PanelTrace.SET_STATE);
+		try {
+			if (DEBUG) {
+				DEBUG_LOG("setState " + mState + " ==> " + newState);
+			}
+			mState = newState;
+			mEventLog.log(PanelEventLog.EVENT_STATE, getScrollY(), 0f, newState);
+
+			final boolean isDraggingOrFling = mState == STATE_DRAGGING || mState == STATE_FLING;
+			if (isDraggingOrFling) {
+				acquireLayer(LAYER_STATE_ACTIVE);
+			} else {
+				releaseLayer();
+			}
+			setScrollingCacheEnabled(isDraggingOrFling);
+			updateVisibilityState();
+			updateFidelity(isDraggingOrFling);
+
+			if (mState == STATE_DRAGGING) {
+				beginFrameMetrics(PanelFrameMetrics.GESTURE_DRAG, 0);
+			} else if (mState != STATE_FLING) {
+				endFrameMetrics();
+			}
+
+			if (mState == STATE_CLOSED) {
+				if (mOnPanelCloseListener != null) {
+					mOnPanelCloseListener.onPanelClosed();
+				}
+			} else if (mState == STATE_OPENED) {
+				if (mOnPanelOpenListener != null) {
+					mOnPanelOpenListener.onPanelOpened();
+				}
+			}
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
+
+	public boolean isOpen() {
+		return mIsOpen;
+	}
+
+	public void closePanel() {
+		if (getTargetOffset() > 0f) {
+			startFling(false, 0);
+		}
+	}
+
+	public void openPanel() {
+		if (getTargetOffset() < 1f) {
+			startFling(true, 0);
+		}
+	}
+
+	/**
+	 * @return offset the panel rests at or is heading to, which may be in between closed and open.
+	 */
+	private float getTargetOffset() {
+		if (mHasPendingAnimation) {
+			return mPendingAnimationOffset;
+		}
+		if (mHasPendingRestore) {
+			return mRestoredOffset;
+		}
+		if (getHeight() == 0) {
+			if (mPendingOffset >= 0f) {
+				return mPendingOffset;
+			}
+			return mIsOpen ? 1f : 0f;
+		}
+		if (getState() == STATE_FLING) {
+			return toScrollOffset(getSettleFinalY());
+		}
+		return getScrollOffset();
+	}
+
+	/**
+	 * Animate the panel to the given offset. Calls within the same frame are coalesced, the last
+	 * one wins, and a call toward the position the panel already rests at or settles to is ignored,
+	 * so the running animation carries on. While the user drags the panel the call is ignored.
+	 * 
+	 * @param offset
+	 *            Value from [0, 1], 0 is closed and 1 is open. The panel counts as open from 0.5.
+	 * @param duration
+	 *            Duration in milliseconds, 0 jumps there like {@link #setOffset(float)}.
+	 * @param interpolator
+	 *            Timing of the animation, null for the default bounce.
+	 */
+	public void animateTo(float offset, int duration, Interpolator interpolator) {
+		mPendingAnimationOffset = Math.max(0f, Math.min(1f, offset));
+		mPendingAnimationDuration = Math.max(0, duration);
+		mPendingAnimationInterpolator = interpolator != null ? interpolator : mInterpolator;
+		mHasPendingAnimation = true;
+		if (!mIsAnimationPosted) {
+			mIsAnimationPosted = true;
+			ViewCompat.postOnAnimation(this, mStartAnimationRunnable);
+		}
+	}
+
+	/**
+	 * Move the panel to the given offset right away, stopping any animation. While the user drags
+	 * the panel the call is ignored.
+	 * 
+	 * @param offset
+	 *            Value from [0, 1], 0 is closed and 1 is open. The panel counts as open from 0.5.
+	 */
+	public void setOffset(float offset) {
+		mHasPendingAnimation = false;
+		if (getState() == STATE_DRAGGING) {
+			return;
+		}
+		offset = Math.max(0f, Math.min(1f, offset));
+		if (offset < 1f) {
+			ensureLazyChild(false);
+		}
+		mIsOpen = offset >= 0.5f;
+		final int height = getHeight();
+		if (height == 0) {
+			// Not laid out yet, the first layout puts the panel there.
+			mPendingOffset = offset;
+			return;
+		}
+		abortSettle();
+		removeCallbacks(mEndScrollRunnable);
+		final int y = Math.round(offset * height);
+		if (getScrollY() != y) {
+			scrollTo(getScrollX(), y);
+			onPanelScrolled(y);
+		}
+		setState(mIsOpen ? STATE_OPENED : STATE_CLOSED);
+	}
+
+	/**
+	 * Put the panel in the given state right away for reuse, e.g. when a recycled list item is
+	 * bound to new content. See {@link #reset(float)}.
+	 */
+	public void reset(boolean isOpen) {
+		reset(isOpen ? 1f : 0f);
+	}
+
+	/**
+	 * Put the panel at the given offset right away for reuse, e.g. when a recycled list item is
+	 * bound to new content. Any drag, animation or pending restore is dropped, the layers and the
+	 * snapshot are released, and none of the open, close or scroll listeners is called. Bound
+	 * properties are updated at once. Children left in low fidelity by the last motion are told to
+	 * render at full fidelity again through {@link OnPanelFidelityListener}. Doesn't allocate.
+	 * 
+	 * @param offset
+	 *            Value from [0, 1], 0 is closed and 1 is open. The panel counts as open from 0.5.
+	 */
+	public void reset(float offset) {
+		offset = Math.max(0f, Math.min(1f, offset));
+
+		// Stop everything in flight, silently.
+		mHasPendingAnimation = false;
+		mHasPendingRestore = false;
+		if (isTranslationSettleRunning()) {
+			mTranslationSettle.cancel();
+		}
+		mIsPhysicsRunning = false;
+		mSettle.abort();
+		mFrameScheduler.cancelFrame();
+		removeCallbacks(mEndScrollRunnable);
+		removeCallbacks(mDispatchScrollRunnable);
+		mIsScrollDispatchPending = false;
+		mHasSettleFrameScroll = false;
+		if (mTouchPipeline.isBeingDragged() || mTouchPipeline.isUnableToDrag()) {
+			mTouchPipeline.endDrag();
+		}
+		if (mIsNestedDragging) {
+			endNestedDrag();
+		}
+		if (mFrameMetrics != null && mFrameMetrics.isRecording()) {
+			mFrameMetrics.end();
+		}
+
+		// Drop what was only kept for moving.
+		removeCallbacks(mReleaseLayerRunnable);
+		setLayerState(LAYER_STATE_NONE);
+		setScrollingCacheEnabled(false);
+		if (mSnapshot != null) {
+			mSnapshot.release();
+		}
+		if (mFidelity != null) {
+			removeCallbacks(mRestoreFidelityRunnable);
+			mRestoreFidelityRunnable.run();
+			mFidelity.reset();
+		}
+
+		if (offset < 1f) {
+			ensureLazyChild(false);
+		}
+		mIsOpen = offset >= 0.5f;
+		mState = mIsOpen ? STATE_OPENED : STATE_CLOSED;
+		final int height = getHeight();
+		if (height == 0) {
+			mPendingOffset = offset;
+		} else {
+			mPendingOffset = -1f;
+			scrollTo(getScrollX(), Math.round(offset * height));
+		}
+		updateVisibilityState();
+		mEventLog.log(PanelEventLog.EVENT_RESET, getScrollY(), 0f, mState);
+		final float scrollOffset = height == 0 ? offset : getScrollOffset();
+		mScrollDispatcher.resetOffsets(scrollOffset);
+		if (mPropertyBindings != null) {
+			mBindingsDirty = false;
+			mPropertyBindings.apply(scrollOffset);
+		}
+	}
+
+	private void startAnimation(float offset, int duration, Interpolator interpolator) {
+		if (offset < 1f) {
+			ensureLazyChild(false);
+		}
+		if (getState() == STATE_DRAGGING || !hasChild()) {
+			return;
+		}
+		final int height = getHeight();
+		if (height == 0 || duration == 0) {
+			setOffset(offset);
+			return;
+		}
+		final int y = Math.round(offset * height);
+		final int currentTargetY = getState() == STATE_FLING ? getSettleFinalY() : getScrollY();
+		if (currentTargetY == y) {
+			// Already there or on the way, don't restart the animation and the layers.
+			return;
+		}
+		mIsOpen = offset >= 0.5f;
+		smoothScrollTo(0, y, 0, duration, interpolator);
+	}
+
+	public void setOnPanelCloseListener(OnPanelCloseListener onPanelCloseListener) {
+		mOnPanelCloseListener = onPanelCloseListener;
+	}
+
+	public void setOnPanelOpenListener(OnPanelOpenListener onPanelOpenListener) {
+		mOnPanelOpenListener = onPanelOpenListener;
+	}
+
+	public void setOnPanelRestoreListener(OnPanelRestoreListener onPanelRestoreListener) {
+		mOnPanelRestoreListener = onPanelRestoreListener;
+	}
+
+	public void setOnPanelScrolledListener(OnPanelScrollListener onPanelScrollListener) {
+		mScrollDispatcher.remove(mOnPanelScrollListener);
+		mOnPanelScrollListener = onPanelScrollListener;
+		addOnPanelScrollListener(onPanelScrollListener);
+	}
+
+	/**
+	 * Add a listener notified at most once per frame with the latest offset, whenever it moved by
+	 * more than the default granularity.
+	 */
+	public void addOnPanelScrollListener(OnPanelScrollListener onPanelScrollListener) {
+		addOnPanelScrollListener(onPanelScrollListener, PanelScrollDispatcher.DEFAULT_GRANULARITY);
+	}
+
+	/**
+	 * Add a listener notified at most once per frame with the latest offset, whenever it moved by
+	 * more than granularity. Adding an already added listener only updates its granularity.
+	 * 
+	 * @param granularity
+	 *            Minimal change of offset in [0, 1] worth a callback, 0 to get every change.
+	 */
+	public void addOnPanelScrollListener(OnPanelScrollListener onPanelScrollListener,
+			float granularity) {
+		mScrollDispatcher.add(onPanelScrollListener, Math.max(0f, granularity), getScrollOffset());
+	}
+
+	public void removeOnPanelScrollListener(OnPanelScrollListener onPanelScrollListener) {
+		mScrollDispatcher.remove(onPanelScrollListener);
+		if (onPanelScrollListener == mOnPanelScrollListener) {
+			mOnPanelScrollListener = null;
+		}
+	}
+
+	/**
+	 * Install a listener receiving frame timing of every drag and fling, null to turn it off.
+	 */
+	public void setOnPanelFrameMetricsListener(OnPanelFrameMetricsListener onPanelFrameMetricsListener) {
+		mOnPanelFrameMetricsListener = onPanelFrameMetricsListener;
+		if (onPanelFrameMetricsListener != null && mFrameMetrics == null) {
+			mFrameMetrics = new PanelFrameMetrics();
+		}
+	}
+
+	/**
+	 * Replace the clock and the vsync interval used by frame metrics, mostly useful for testing.
+	 */
+	public void setFrameMetricsClock(PanelFrameMetrics.FrameClock clock, long frameIntervalNanos) {
+		if (mFrameMetrics == null) {
+			mFrameMetrics = new PanelFrameMetrics();
+		}
+		mFrameMetrics.setClock(clock);
+		mFrameMetrics.setFrameIntervalNanos(frameIntervalNanos);
+	}
+
+	private void beginFrameMetrics(int gesture, int plannedDuration) {
+		if (mOnPanelFrameMetricsListener != null) {
+			endFrameMetrics();
+			mFrameMetrics.begin(gesture, plannedDuration);
+		}
+	}
+
+	private void endFrameMetrics() {
+		if (mFrameMetrics != null && mFrameMetrics.isRecording()) {
+			mFrameMetrics.end();
+			if (mOnPanelFrameMetricsListener != null) {
+				mOnPanelFrameMetricsListener.onPanelFrameMetrics(mFrameMetrics);
+			}
+		}
+	}
+
+	/**
+	 * Choose how the panel settles after a release or a programmatic open/close.
+	 * {@link #MOVE_MODE_SCROLL} animates the scroll position from the UI thread,
+	 * {@link #MOVE_MODE_TRANSLATION} animates the child's translation instead, which changes a
+	 * property of its display list rather than scrolling and redrawing the panel on each frame.
+	 * Both run on the UI thread and report the offset of every frame to scroll listeners and bound
+	 * properties. The latter needs Android 3.1+ and falls back to scrolling on older versions.
+	 */
+	public void setMoveMode(int moveMode) {
+		if (moveMode == MOVE_MODE_TRANSLATION && !PanelTranslationSettle.isSupported()) {
+			moveMode = MOVE_MODE_SCROLL;
+		}
+		mMoveMode = moveMode;
+	}
+
+	public int getMoveMode() {
+		return mMoveMode;
+	}
+
+	private boolean isTranslationSettleRunning() {
+		return mTranslationSettle != null && mTranslationSettle.isRunning();
+	}
+
+	private void abortTranslationSettle() {
+		if (isTranslationSettleRunning()) {
+			final int scrollY = mTranslationSettle.cancel();
+			scrollTo(getScrollX(), scrollY);
+			onPanelScrolled(scrollY);
+		}
+	}
+
+	private int getSettleFinalY() {
+		if (isTranslationSettleRunning()) {
+			return mTranslationSettle.getFinalScrollY();
+		} else if (mIsPhysicsRunning) {
+			return mPhysicsTargetY;
+		}
+		return mSettle.getFinalY();
+	}
+
+	private void abortSettle() {
+		if (isTranslationSettleRunning()) {
+			abortTranslationSettle();
+		} else if (mIsPhysicsRunning) {
+			mIsPhysicsRunning = false;
+		} else {
+			mSettle.abort();
+		}
+		mFrameScheduler.cancelFrame();
+	}
+
+	/**
+	 * Share frame callbacks, velocity tracking and the drag with the other panels attached to the
+	 * same coordinator.
+	 * 
+	 * @param coordinator
+	 *            The shared coordinator, or null for the panel to move on its own.
+	 */
+	public void setMotionCoordinator(PanelMotionCoordinator coordinator) {
+		if (mCoordinator == coordinator) {
+			return;
+		}
+		final boolean framePosted = mFrameScheduler.isFramePosted();
+		mFrameScheduler.cancelFrame();
+		if (mCoordinator != null) {
+			mCoordinator.onPanelDetached(this);
+		}
+		mCoordinator = coordinator;
+		if (coordinator != null) {
+			mFrameScheduler = coordinator.createScheduler(mSettleFrameCallback);
+			if (mTouchPipeline.isBeingDragged()) {
+				coordinator.requestDrag(this);
+			}
+		} else {
+			mFrameScheduler = PanelFrameSchedulers.create(this, mSettleFrameCallback);
+		}
+		if (framePosted) {
+			mFrameScheduler.postFrame();
+		}
+	}
+
+	public PanelMotionCoordinator getMotionCoordinator() {
+		return mCoordinator;
+	}
+
+	/**
+	 * Settle with the given physics instead of the fixed duration bounce animation, so the settle
+	 * time follows from the release velocity and distance. Only used by {@link #MOVE_MODE_SCROLL}.
+	 * 
+	 * @param physics
+	 *            e.g. a {@link SpringPhysics} or a {@link DecayPhysics}, or null for the default
+	 *            bounce animation. Physics hold the state of the running settle, don't share an
+	 *            instance between panels.
+	 */
+	public void setSettlePhysics(PanelPhysics physics) {
+		if (mIsPhysicsRunning) {
+			// Finish at the target of the running settle.
+			completeScroll(false);
+		}
+		mPhysics = physics;
+	}
+
+	public PanelPhysics getSettlePhysics() {
+		return mPhysics;
+	}
+
+	/**
+	 * Draw the panel where the finger is predicted to be the given time ahead while dragging,
+	 * extrapolated from all touch samples including the historical ones batched into each event.
+	 * This hides part of the touch to display latency. 0 turns prediction off.
+	 * 
+	 * @param horizon
+	 *            Prediction horizon in milliseconds, about one frame is a good start.
+	 */
+	public void setDragPredictionHorizon(int horizon) {
+		mTouchPipeline.setDragPredictionHorizon(horizon);
+	}
+
+	public int getDragPredictionHorizon() {
+		return mTouchPipeline.getDragPredictionHorizon();
+	}
+
+	/**
+	 * Print the last events of the panel, e.g. touches, state changes, settles and layouts, oldest
+	 * first. The event log is always on, so this can go into bug reports.
+	 */
+	public void dumpEventLog(PrintWriter writer) {
+		mEventLog.dump(writer, "");
+	}
+
+	/**
+	 * Record every touch event reaching the panel into out, in the compact format read by
+	 * {@link PanelGestureTrace.Reader}. The stream is written by a background thread, never from
+	 * the touch path. Recording stops on {@link #stopGestureRecording()}, or by itself when writing
+	 * fails, and the stream is closed either way.
+	 */
+	public void startGestureRecording(OutputStream out) throws IOException {
+		stopGestureRecording();
+		mGestureWriter = new PanelGestureTrace.Writer(new PanelGestureTrace.BackgroundOutputStream(out),
+				getWidth(), getHeight());
+	}
+
+	/**
+	 * Stop recording touch events. What is left is written, and the stream closed, in the
+	 * background.
+	 * 
+	 * @throws IOException
+	 *             if writing had failed already.
+	 */
+	public void stopGestureRecording() throws IOException {
+		final PanelGestureTrace.Writer writer = mGestureWriter;
+		if (writer != null) {
+			mGestureWriter = null;
+			writer.close();
+		}
+	}
+
+	public boolean isGestureRecording() {
+		return mGestureWriter != null;
+	}
+
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev) {
+		if (mGestureWriter != null) {
+			recordTouchEvent(ev);
+		}
+		return super.dispatchTouchEvent(ev);
+	}
+
+	private void recordTouchEvent(MotionEvent ev) {
+		final PanelGestureTrace.Writer writer = mGestureWriter;
+		final int action = MotionEventCompat.getActionMasked(ev);
+		final int pointerCount = Math.min(MotionEventCompat.getPointerCount(ev),
+				PanelGestureTrace.MAX_POINTERS);
+		final int historySize = ev.getHistorySize();
+		try {
+			writer.beginEvent(action, MotionEventCompat.getActionIndex(ev), pointerCount, historySize);
+			for (int h = 0; h < historySize; h++) {
+				writer.beginSample(ev.getHistoricalEventTime(h));
+				for (int p = 0; p < pointerCount; p++) {
+					// Only the first pointer has history before Android 2.0, which has no other pointers.
+					writer.writePointer(MotionEventCompat.getPointerId(ev, p),
+							p == 0 ? ev.getHistoricalX(h) : ev.getHistoricalX(p, h),
+							p == 0 ? ev.getHistoricalY(h) : ev.getHistoricalY(p, h));
+				}
+			}
+			writer.beginSample(ev.getEventTime());
+			for (int p = 0; p < pointerCount; p++) {
+				writer.writePointer(MotionEventCompat.getPointerId(ev, p),
+						MotionEventCompat.getX(ev, p), MotionEventCompat.getY(ev, p));
+			}
+			if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+				// One gesture at a time reaches the stream.
+				writer.flush();
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "Gesture recording stopped", e);
+			mGestureWriter = null;
+			try {
+				writer.close();
+			} catch (IOException ignored) {
+				// Already reported.
+			}
+		}
+	}
+
+	/**
+	 * Build the hardware layer already on touch down, before the touch slop is crossed, so the
+	 * first drag frame doesn't pay for it.
+	 */
+	public void setLayerPrewarmEnabled(boolean enabled) {
+		mLayerPrewarmEnabled = enabled;
+	}
+
+	/**
+	 * Keep the hardware layer after the panel settled for the given duration, so grabbing the
+	 * panel again right away reuses it. 0 drops the layer immediately.
+	 */
+	public void setLayerKeepAliveDuration(int duration) {
+		mLayerKeepAliveDuration = Math.max(0, duration);
+	}
+
+	/**
+	 * Never use a hardware layer for a child bigger than the given number of bytes, assuming 4
+	 * bytes per pixel. 0 means no limit.
+	 */
+	public void setLayerMemoryBudget(int bytes) {
+		mLayerMemoryBudget = Math.max(0, bytes);
+	}
+
+	public void setOnPanelLayerStateListener(OnPanelLayerStateListener onPanelLayerStateListener) {
+		mOnPanelLayerStateListener = onPanelLayerStateListener;
+	}
+
+	public int getLayerState() {
+		return mLayerState;
+	}
+
+	private void acquireLayer(int layerState) {
+		removeCallbacks(mReleaseLayerRunnable);
+		// A snapshot is drawn instead of the child while moving, a layer would be wasted.
+		if (!mSnapshotEnabled && isLayerWithinBudget()) {
+			setLayerState(layerState);
+		} else {
+			setLayerState(LAYER_STATE_NONE);
+		}
+	}
+
+	private void releaseLayer() {
+		removeCallbacks(mReleaseLayerRunnable);
+		if (mLayerState == LAYER_STATE_NONE) {
+			return;
+		}
+		if (mLayerKeepAliveDuration > 0) {
+			setLayerState(LAYER_STATE_KEEP_ALIVE);
+			postDelayed(mReleaseLayerRunnable, mLayerKeepAliveDuration);
+		} else {
+			setLayerState(LAYER_STATE_NONE);
+		}
+	}
+
+	private boolean isLayerWithinBudget() {
+		if (mLayerMemoryBudget == 0) {
+			return true;
+		}
+		final int childCount = getChildCount();
+		long bytes = 0;
+		for (int i = 0; i < childCount; i++) {
+			final View child = getChildAt(i);
+			bytes += 4L * child.getWidth() * child.getHeight();
+		}
+		return bytes <= mLayerMemoryBudget;
+	}
+
+	private void setLayerState(int layerState) {
+		if (mLayerState == layerState) {
+			return;
+		}
+		final boolean hadLayer = mLayerState != LAYER_STATE_NONE;
+		final boolean hasLayer = layerState != LAYER_STATE_NONE;
+		mLayerState = layerState;
+		if (hadLayer != hasLayer) {
+			enableLayers(hasLayer);
+		}
+		if (mOnPanelLayerStateListener != null) {
+			mOnPanelLayerStateListener.onPanelLayerStateChanged(layerState);
+		}
+	}
+
+	/**
+	 * Draw a bitmap snapshot of the child instead of the live child while the panel is dragged or
+	 * flung. The snapshot is taken when the panel starts moving.
+	 */
+	public void setSnapshotEnabled(boolean enabled) {
+		if (mSnapshotEnabled == enabled) {
+			return;
+		}
+		mSnapshotEnabled = enabled;
+		if (enabled) {
+			if (mSnapshot == null) {
+				mSnapshot = new PanelSnapshot();
+			}
+			mSnapshot.invalidate();
+		} else if (mSnapshot != null) {
+			mSnapshot.release();
+		}
+		invalidate();
+	}
+
+	public boolean isSnapshotEnabled() {
+		return mSnapshotEnabled;
+	}
+
+	/**
+	 * Scale of the snapshot relative to the child, from 0.1 to 1. Lower values trade sharpness for
+	 * memory and capture time.
+	 */
+	public void setSnapshotScale(float scale) {
+		if (mSnapshot == null) {
+			mSnapshot = new PanelSnapshot();
+		}
+		mSnapshot.setScale(scale);
+	}
+
+	/**
+	 * Maximal bytes used by the snapshot bitmap, it is downscaled further to fit. 0 means no limit.
+	 */
+	public void setSnapshotMemoryBudget(int bytes) {
+		if (mSnapshot == null) {
+			mSnapshot = new PanelSnapshot();
+		}
+		mSnapshot.setMemoryBudget(Math.max(0, bytes));
+	}
+
+	/**
+	 * Retake the snapshot on the next frame, call it when the child content changed while moving.
+	 */
+	public void invalidateSnapshot() {
+		if (mSnapshot != null) {
+			mSnapshot.invalidate();
+			if (mScrollingCacheEnabled) {
+				invalidate();
+			}
+		}
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		super.onDraw(canvas);
+		if (mPlaceholder != null && getChildCount() == 0) {
+			// Scrolls along like the child will.
+			mPlaceholder.setBounds(getPaddingLeft(), getPaddingTop(),
+					getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+			mPlaceholder.draw(canvas);
+		}
+	}
+
+	@Override
+	protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+		if (!mIsCoverVisible && !isTranslationSettleRunning()) {
+			// Scrolled fully out of the panel, nothing of it would show.
+			return false;
+		}
+		if (mScrollingCacheEnabled && mSnapshotEnabled && !isTranslationSettleRunning()) {
+			if (mSnapshot.isValid() || mSnapshot.capture(child)) {
+				mSnapshot.draw(canvas, child);
+				return false;
+			}
+		}
+		return super.drawChild(canvas, child, drawingTime);
+	}
+
+	/**
+	 * Declare the panel's child fully opaque, so the closed panel hides whatever is behind it.
+	 * Only then are views added by {@link #addOccludedView(View)} hidden and
+	 * {@link OnPanelVisibilityListener#onPanelBackgroundOccluded(boolean)} reported.
+	 */
+	public void setCoverOpaque(boolean coverOpaque) {
+		mCoverOpaque = coverOpaque;
+		updateVisibilityState();
+	}
+
+	/**
+	 * Add a view behind the panel which is made invisible, and so not drawn, while the closed
+	 * panel fully covers it. It gets back the visibility it had once it shows again.
+	 */
+	public void addOccludedView(View view) {
+		if (view != null && !mOccludedViews.contains(view)) {
+			final int count = mOccludedViews.size();
+			if (count == mOccludedVisibilities.length) {
+				final int[] visibilities = new int[count * 2];
+				System.arraycopy(mOccludedVisibilities, 0, visibilities, 0, count);
+				mOccludedVisibilities = visibilities;
+			}
+			mOccludedViews.add(view);
+			if (mIsBackgroundOccluded) {
+				hideOccludedView(count);
+			}
+		}
+	}
+
+	/**
+	 * Remove a view added by {@link #addOccludedView(View)}, giving it back the visibility it had
+	 * before the panel hid it.
+	 */
+	public void removeOccludedView(View view) {
+		final int index = mOccludedViews.indexOf(view);
+		if (index < 0) {
+			return;
+		}
+		if (mIsBackgroundOccluded) {
+			showOccludedView(index);
+		}
+		mOccludedViews.remove(index);
+		System.arraycopy(mOccludedVisibilities, index + 1, mOccludedVisibilities, index,
+				mOccludedViews.size() - index);
+	}
+
+	private void hideOccludedView(int index) {
+		final View view = mOccludedViews.get(index);
+		final int visibility = view.getVisibility();
+		mOccludedVisibilities[index] = visibility;
+		if (visibility == VISIBLE) {
+			view.setVisibility(INVISIBLE);
+		}
+	}
+
+	private void showOccludedView(int index) {
+		final View view = mOccludedViews.get(index);
+		// Leave it alone if it was changed while hidden.
+		if (view.getVisibility() == INVISIBLE) {
+			view.setVisibility(mOccludedVisibilities[index]);
+		}
+	}
+
+	/**
+	 * Bind a property of target to the panel offset. The property follows the piecewise linear
+	 * curve through the points (offsets[i], values[i]) and holds the first or last value outside
+	 * of it. All bindings are evaluated together once per frame, and a property is only set when
+	 * its value changed. Bindings need Android 3.0+ and are ignored on older versions.
+	 * 
+	 * @param target
+	 *            The view whose property follows the panel.
+	 * @param property
+	 *            One of {@link #PROPERTY_ALPHA}, {@link #PROPERTY_TRANSLATION_X},
+	 *            {@link #PROPERTY_TRANSLATION_Y}, {@link #PROPERTY_SCALE_X} or
+	 *            {@link #PROPERTY_SCALE_Y}.
+	 * @param offsets
+	 *            Panel offsets in [0, 1] of the curve points, in ascending order.
+	 * @param values
+	 *            Property values at the curve points.
+	 */
+	public void addPropertyBinding(View target, int property, float[] offsets, float[] values) {
+		if (!PanelPropertyBindings.isSupported()) {
+			return;
+		}
+		if (mPropertyBindings == null) {
+			mPropertyBindings = new PanelPropertyBindings();
+			if (getWindowToken() != null) {
+				getViewTreeObserver().addOnPreDrawListener(mApplyBindingsListener);
+			}
+		}
+		mPropertyBindings.add(target, property, offsets, values);
+		// Put the new binding in place on the next frame.
+		mBindingOffset = getBindingOffset();
+		mBindingsDirty = true;
+		invalidate();
+	}
+
+	/**
+	 * Remove all property bindings of target, leaving its properties as they are.
+	 */
+	public void removePropertyBindings(View target) {
+		if (mPropertyBindings != null) {
+			mPropertyBindings.remove(target);
+		}
+	}
+
+	private float getBindingOffset() {
+		if (isTranslationSettleRunning()) {
+			return toScrollOffset(mTranslationSettle.getCurrentScrollY());
+		}
+		return getScrollOffset();
+	}
+
+	/**
+	 * Set when the children added by {@link #addOnPanelFidelityListener(OnPanelFidelityListener)}
+	 * are told to render cheaply while the panel is dragged or flung.
+	 * 
+	 * @param policy
+	 *            {@link #FIDELITY_POLICY_NONE} to never degrade, {@link #FIDELITY_POLICY_ALWAYS} to
+	 *            degrade for every motion, or {@link #FIDELITY_POLICY_ADAPTIVE} to degrade only once
+	 *            the frames of a motion turn slow.
+	 */
+	public void setLowFidelityPolicy(int policy) {
+		mFidelityPolicy = policy;
+		if (policy == FIDELITY_POLICY_NONE) {
+			removeCallbacks(mRestoreFidelityRunnable);
+			mRestoreFidelityRunnable.run();
+			mFidelity = null;
+		} else if (mFidelity == null) {
+			mFidelity = new PanelFidelity();
+		}
+	}
+
+	public int getLowFidelityPolicy() {
+		return mFidelityPolicy;
+	}
+
+	/**
+	 * Set the frame interval above which a frame counts as slow for
+	 * {@link #FIDELITY_POLICY_ADAPTIVE}, 0 for one and a half display frames.
+	 */
+	public void setLowFidelityFrameThreshold(int millis) {
+		mSlowFrameNanos = Math.max(0, millis) * 1000000L;
+	}
+
+	public void addOnPanelFidelityListener(OnPanelFidelityListener listener) {
+		if (listener != null && !mFidelityListeners.contains(listener)) {
+			mFidelityListeners.add(listener);
+			if (mFidelity != null && mFidelity.isLowFidelity()) {
+				listener.onPanelFidelityChanged(true);
+			}
+		}
+	}
+
+	public void removeOnPanelFidelityListener(OnPanelFidelityListener listener) {
+		mFidelityListeners.remove(listener);
+	}
+
+	public boolean isLowFidelity() {
+		return mFidelity != null && mFidelity.isLowFidelity();
+	}
+
+	private void updateFidelity(boolean moving) {
+		if (mFidelity == null || moving == mFidelity.isMoving()) {
+			return;
+		}
+		if (moving) {
+			removeCallbacks(mRestoreFidelityRunnable);
+			if (mFidelity.onMotionStarted(mFidelityPolicy == FIDELITY_POLICY_ADAPTIVE)) {
+				dispatchFidelityChanged(true);
+			}
+		} else {
+			mFidelity.onMotionStopped();
+			if (mFidelity.isLowFidelity()) {
+				// Stay cheap a little longer, the user often grabs the panel again right away.
+				postDelayed(mRestoreFidelityRunnable, RESTORE_FIDELITY_DELAY);
+			}
+		}
+	}
+
+	private void dispatchFidelityChanged(boolean lowFidelity) {
+		if (DEBUG) {
+			DEBUG_LOG("fidelity " + (lowFidelity ? "low" : "full"));
+		}
+		for (int i = 0, count = mFidelityListeners.size(); i < count; i++) {
+			mFidelityListeners.get(i).onPanelFidelityChanged(lowFidelity);
+		}
+	}
+
+	public void setOnPanelVisibilityListener(OnPanelVisibilityListener onPanelVisibilityListener) {
+		mOnPanelVisibilityListener = onPanelVisibilityListener;
+	}
+
+	public boolean isBackgroundOccluded() {
+		return mIsBackgroundOccluded;
+	}
+
+	public boolean isCoverVisible() {
+		return mIsCoverVisible;
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		updateVisibilityState();
+	}
+
+	private void updateVisibilityState() {
+		final View child = getChildCount() == 1 ? getChildAt(0) : null;
+		final boolean childShown = child != null && child.getVisibility() == VISIBLE;
+		final int scrollY = getScrollY();
+
+		final boolean coverVisible = childShown && scrollY < child.getBottom()
+				&& scrollY + getHeight() > child.getTop();
+		if (mIsCoverVisible != coverVisible) {
+			mIsCoverVisible = coverVisible;
+			if (mOnPanelVisibilityListener != null) {
+				mOnPanelVisibilityListener.onPanelCoverVisibilityChanged(coverVisible);
+			}
+		}
+
+		final boolean occluded = mCoverOpaque && childShown && getState() == STATE_CLOSED
+				&& scrollY == 0 && child.getLeft() <= 0 && child.getTop() <= 0
+				&& child.getRight() >= getWidth() && child.getBottom() >= getHeight();
+		if (mIsBackgroundOccluded != occluded) {
+			mIsBackgroundOccluded = occluded;
+			for (int i = 0, count = mOccludedViews.size(); i < count; i++) {
+				if (occluded) {
+					hideOccludedView(i);
+				} else {
+					showOccludedView(i);
+				}
+			}
+			if (mOnPanelVisibilityListener != null) {
+				mOnPanelVisibilityListener.onPanelBackgroundOccluded(occluded);
+			}
+		}
+	}
+
+	protected void onPanelScrolled(float scrollY) {
+		if (mPropertyBindings != null && !mPropertyBindings.isEmpty()) {
+			mBindingOffset = toScrollOffset(scrollY);
+			mBindingsDirty = true;
+		}
+		if (mScrollDispatcher.isEmpty()) {
+			return;
+		}
+		mPendingScrollOffset = toScrollOffset(scrollY);
+		if (mIsInSettleFrame) {
+			// Already in the frame callback, dispatched at its end without waiting for the next frame.
+			mHasSettleFrameScroll = true;
+		} else if (!mIsScrollDispatchPending) {
+			// Conflate all scrolls of this frame into one dispatch.
+			mIsScrollDispatchPending = true;
+			ViewCompat.postOnAnimation(this, mDispatchScrollRunnable);
+		}
+	}
 
-	// drawing cache
-	private boolean mScrollingCacheEnabled;
+	private float getScrollOffset() {
+		return toScrollOffset(getScrollY());
+	}
 
-	private final Runnable mEndScrollRunnable = new Runnable() {
-		public void run() {
-			setState(mIsOpen ? STATE_OPENED : STATE_CLOSED);
+	private float toScrollOffset(float scrollY) {
+		final int height = getHeight();
+		float offset = 0f;
+		if (height > 0) {
+			offset = Math.max(0f, Math.min(1f, Math.abs(scrollY / height)));
 		}
-	};
+		return offset;
+	}
 
 	/**
-	 * Callback interface for responding to the open state of the sliding up panel.
+	 * Inflate the child from layoutResId only once it is first needed, i.e. when the panel isn't
+	 * resting fully open at its first layout, or is dragged or moved away from fully open later. A
+	 * panel restored or set open before its first layout so never pays for inflating, measuring and
+	 * drawing the child. Until then the panel measures as if the child filled the space it is given.
 	 */
-	public interface OnPanelOpenListener {
-		public void onPanelOpened();
+	public void setLazyChild(int layoutResId) {
+		checkNoChild();
+		mLazyChildLayout = layoutResId;
+		mLazyChildFactory = null;
+		requestLayout();
 	}
 
 	/**
-	 * Callback interface for responding to the close state of the sliding up panel.
+	 * Create the child from factory only once it is first needed, see {@link #setLazyChild(int)}.
 	 */
-	public interface OnPanelCloseListener {
-		public void onPanelClosed();
+	public void setLazyChild(ChildFactory factory) {
+		checkNoChild();
+		mLazyChildLayout = 0;
+		mLazyChildFactory = factory;
+		requestLayout();
 	}
 
 	/**
-	 * Callback interface for responding to scrolling of the panel.
+	 * Inflate the child from layoutResId on a background thread, so it doesn't add to the start up
+	 * time. Until the child is attached the panel draws placeholder where the child will be, and
+	 * touch, state changes and animations work on the empty panel as usual. The child then takes
+	 * over at the same offset and state. Detaching the panel drops a running inflate, it starts
+	 * over when the panel is attached again.
+	 * 
+	 * @param placeholder
+	 *            Cheap drawable shown meanwhile, e.g. a color or a small bitmap, or null.
 	 */
-	public interface OnPanelScrollListener {
-		/**
-		 * This method will be invoked when the panel is scrolled.
-		 * 
-		 * @param offset
-		 *            Value from [0, 1] indicating the offset of the scrolling panel.
-		 */
-		public void onPanelScrolled(float offset);
+	public void setAsyncChild(int layoutResId, Drawable placeholder) {
+		checkNoChild();
+		mLazyChildLayout = 0;
+		mLazyChildFactory = null;
+		mPlaceholder = placeholder;
+		mAsyncChildLayout = layoutResId;
+		startAsyncInflater();
+		requestLayout();
+		invalidate();
 	}
 
-	public SlidingUpPanel(Context context, AttributeSet attrs, int defStyle) {
-		super(context, attrs, defStyle);
-		initSlidingUpPanel();
+	private void startAsyncInflater() {
+		mAsyncInflater = new PanelAsyncInflater(this, mAsyncChildLayout, mAsyncInflaterCallback);
+		mAsyncInflater.start();
 	}
 
-	public SlidingUpPanel(Context context, AttributeSet attrs) {
-		super(context, attrs);
-		initSlidingUpPanel();
+	/**
+	 * @return true while the child is inflated in the background.
+	 */
+	public boolean isAsyncChildPending() {
+		return mAsyncChildLayout != 0;
 	}
 
-	public SlidingUpPanel(Context context) {
-		super(context);
-		initSlidingUpPanel();
+	/**
+	 * @return true while a lazy child is waiting to be created.
+	 */
+	public boolean isLazyChildPending() {
+		return mLazyChildLayout != 0 || mLazyChildFactory != null;
 	}
 
-	private void initSlidingUpPanel() {
-		setWillNotDraw(false);
-		setDescendantFocusability(FOCUS_AFTER_DESCENDANTS);
-		setFocusable(true);
-
-		final Context context = getContext();
-		final ViewConfiguration configuration = ViewConfiguration.get(context);
-		final float density = context.getResources().getDisplayMetrics().density;
-
-		mScroller = new Scroller(context, new BounceInterpolator());
-		mMinimumVelocity = (int) (MIN_FLING_VELOCITY * density);
-		mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
-		mFlingDistance = (int) (MIN_DISTANCE_FOR_FLING * density);
-		mTouchSlop = ViewConfigurationCompat.getScaledPagingTouchSlop(configuration);
+	/**
+	 * @return true if the panel has its child, or will get it.
+	 */
+	private boolean hasChild() {
+		return getChildCount() > 0 || isAsyncChildPending() || isLazyChildPending();
 	}
 
-	@Override
-	protected void onDetachedFromWindow() {
-		removeCallbacks(mEndScrollRunnable);
-		super.onDetachedFromWindow();
+	private void checkNoChild() {
+		if (getChildCount() > 0 || isAsyncChildPending()) {
+			throw new IllegalStateException("SlidingUpPanel already has its child view");
+		}
 	}
 
-	protected int getState() {
-		return mState;
+	/**
+	 * @return true unless the panel rests fully open, where the child is scrolled out of sight.
+	 */
+	private boolean isLazyChildNeeded() {
+		if (mHasPendingRestore) {
+			return mRestoredOffset < 1f;
+		}
+		if (mPendingOffset >= 0f) {
+			return mPendingOffset < 1f;
+		}
+		if (getState() == STATE_DRAGGING || getState() == STATE_FLING) {
+			return true;
+		}
+		return !mIsOpen || (getHeight() > 0 && getScrollY() < getHeight());
 	}
 
-	protected void setState(int newState) {
-		if (mState == newState) {
+	/**
+	 * Create the lazy child if it is still pending.
+	 * 
+	 * @param inLayout
+	 *            true when called while measuring, where adding must not request another layout.
+	 */
+	private void ensureLazyChild(boolean inLayout) {
+		if (!isLazyChildPending()) {
 			return;
 		}
-
-		DEBUG_LOG("setState " + mState + " ==> " + newState);
-		mState = newState;
-
-		final boolean isDraggingOrFling = mState == STATE_DRAGGING || mState == STATE_FLING;
-		enableLayers(isDraggingOrFling);
-		setScrollingCacheEnabled(isDraggingOrFling);
-
-		if (mState == STATE_CLOSED) {
-			if (mOnPanelCloseListener != null) {
-				mOnPanelCloseListener.onPanelClosed();
-			}
-		} else if (mState == STATE_OPENED) {
-			if (mOnPanelOpenListener != null) {
-				mOnPanelOpenListener.onPanelOpened();
-			}
+		PanelTrace.beginSection(PanelTrace.INFLATE);
+		try {
+			final ChildFactory factory = mLazyChildFactory;
+			final int layout = mLazyChildLayout;
+			mLazyChildFactory = null;
+			mLazyChildLayout = 0;
+			final View child = factory != null ? factory.createChild(this)
+					: LayoutInflater.from(getContext()).inflate(layout, this, false);
+			addChild(child, inLayout);
+		} finally {
+			PanelTrace.endSection();
 		}
 	}
 
-	public boolean isOpen() {
-		return mIsOpen;
-	}
-
-	public void closePanel() {
-		if (isOpen()) {
-			startFling(false, 0);
+	private void addChild(View child, boolean inLayout) {
+		ViewGroup.LayoutParams lp = child.getLayoutParams();
+		if (lp == null) {
+			lp = generateDefaultLayoutParams();
+		} else if (!checkLayoutParams(lp)) {
+			lp = generateLayoutParams(lp);
 		}
-	}
-
-	public void openPanel() {
-		if (!isOpen()) {
-			startFling(true, 0);
+		if (inLayout) {
+			addViewInLayout(child, 0, lp, true);
+		} else {
+			addView(child, 0, lp);
 		}
 	}
 
-	public void setOnPanelCloseListener(OnPanelCloseListener onPanelCloseListener) {
-		mOnPanelCloseListener = onPanelCloseListener;
-	}
-
-	public void setOnPanelOpenListener(OnPanelOpenListener onPanelOpenListener) {
-		mOnPanelOpenListener = onPanelOpenListener;
-	}
-
-	public void setOnPanelScrolledListener(OnPanelScrollListener onPanelScrollListener) {
-		mOnPanelScrollListener = onPanelScrollListener;
+	// layout
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		PanelTrace.beginSection(PanelTrace.MEASURE);
+		try {
+			doMeasure(widthMeasureSpec, heightMeasureSpec);
+		} finally {
+			PanelTrace.endSection();
+		}
 	}
 
-	protected void onPanelScrolled(float scrollY) {
-		if (mOnPanelScrollListener != null) {
-			final int height = getHeight();
-			float offset = 0f;
-			if (height > 0) {
-				offset = Math.max(0f, Math.min(1f, Math.abs(scrollY / height)));
-			}
-			if (Math.abs(mLastPanelScrolledOffset - offset) > 0.009f) {
-				mLastPanelScrolledOffset = offset;
-				mOnPanelScrollListener.onPanelScrolled(offset);
+	private void doMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		if (isLazyChildPending() || isAsyncChildPending()) {
+			if (!isAsyncChildPending() && isLazyChildNeeded()) {
+				ensureLazyChild(true);
+			} else {
+				// Placeholder, take the space the child would most likely fill.
+				setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+						getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec));
+				return;
 			}
 		}
-	}
-
-	// layout
-	@Override
-	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
 		if (getChildCount() > 1) {
 			throw new IllegalStateException("SlidingUpPanel can only contain on child view");
 		} else {
@@ -265,6 +1756,15 @@ public class SlidingUpPanel extends ViewGroup {
 
 	@Override
 	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		PanelTrace.beginSection(PanelTrace.LAYOUT);
+		try {
+			doLayout(l, t, r, b);
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
+
+	private void doLayout(int l, int t, int r, int b) {
 		if (getChildCount() > 1) {
 			throw new IllegalStateException("SlidingUpPanel can only contain on child view");
 		} else if (getChildCount() == 1) {
@@ -276,13 +1776,43 @@ public class SlidingUpPanel extends ViewGroup {
 				final int left = getPaddingLeft() + lp.leftMargin;
 				final int top = getPaddingTop() + lp.topMargin;
 				child.layout(left, top, left + width, top + height);
-				if (mIsOpen) {
-					scrollTo(0, height);
-					mIsOpen = false;
-					openPanel();
-				}
 			}
 		}
+		final int height = b - t;
+		if (height != mLayoutHeight) {
+			final int oldHeight = mLayoutHeight;
+			mLayoutHeight = height;
+			onLayoutHeightChanged(oldHeight, height);
+		}
+		updateVisibilityState();
+	}
+
+	/**
+	 * Keep the panel where it was across a height change, without animating. Also puts a panel
+	 * opened before its first layout at its open position.
+	 */
+	private void onLayoutHeightChanged(int oldHeight, int height) {
+		mEventLog.log(PanelEventLog.EVENT_LAYOUT, getScrollY(), height, mState);
+		if (mHasPendingRestore) {
+			applyRestoredState(height);
+			return;
+		}
+		if (getState() == STATE_FLING) {
+			// The running settle aims at the old bounds, finish it right away.
+			completeScroll(false);
+		}
+		if (oldHeight > 0) {
+			// Keep the offset, the panel may rest in between closed and open.
+			scrollTo(getScrollX(), (int) ((long) getScrollY() * height / oldHeight));
+		} else if (mPendingOffset >= 0f) {
+			scrollTo(getScrollX(), Math.round(mPendingOffset * height));
+			mPendingOffset = -1f;
+		} else {
+			scrollTo(getScrollX(), mIsOpen ? height : 0);
+		}
+		if (getState() != STATE_DRAGGING) {
+			setState(mIsOpen ? STATE_OPENED : STATE_CLOSED);
+		}
 	}
 
 	@Override
@@ -308,307 +1838,248 @@ public class SlidingUpPanel extends ViewGroup {
 	// dragging
 	@Override
 	public boolean onInterceptTouchEvent(MotionEvent ev) {
-		// This method JUST determines whether we want to intercept the motion.
-		// If we return true, onMotionEvent will be called and we do the actual
-		// scrolling there.
-		final int action = MotionEventCompat.getActionMasked(ev);
-
-		// Always take care of the touch gesture being complete.
-		if (action == MotionEvent.ACTION_CANCEL || action == MotionEvent.ACTION_UP) {
-			// Release the drag.
-			DEBUG_LOG("Intercept done!");
-			endDrag();
+		if (mTouchPipeline.isGestureIgnored(mTouchEvent.set(ev))) {
+			// Fast path, the open panel can't be dragged from where this gesture started.
 			return false;
 		}
-
-		// Nothing more to do here if we have decided whether or not we are dragging.
-		if (action != MotionEvent.ACTION_DOWN) {
-			if (mIsBeingDragged) {
-				DEBUG_LOG("Intercept returning true!");
-				return true;
-			}
-			if (mIsUnableToDrag) {
-				DEBUG_LOG("Intercept returning false!");
-				return false;
-			}
+		PanelTrace.beginSection(PanelTrace.INTERCEPT);
+		try {
+			return mTouchPipeline.onInterceptTouchEvent(mTouchEvent);
+		} finally {
+			PanelTrace.endSection();
 		}
+	}
 
-		// Check whether the user has moved far enough from his original down touch.
-		switch (action) {
-		case MotionEvent.ACTION_DOWN: {
-			onTouchDown(ev, true);
-			DEBUG_LOG("***Down at " + mLastMotionX + "," + mLastMotionY
-					+ " mIsBeingDragged=" + mIsBeingDragged
-					+ " mIsUnableToDrag=" + mIsUnableToDrag);
-			break;
+	@Override
+	public boolean onTouchEvent(MotionEvent ev) {
+		if (mTouchPipeline.isGestureIgnored(mTouchEvent.set(ev))) {
+			return false;
 		}
-		case MotionEvent.ACTION_MOVE: {
-			final int activePointerId = mActivePointerId;
-			if (activePointerId == INVALID_POINTER) {
-				// If we don't have a valid id, the touch down wasn't on content.
-				break;
-			}
-			final int pointerIndex = MotionEventCompat.findPointerIndex(ev, activePointerId);
-			final float x = MotionEventCompat.getX(ev, pointerIndex);
-			final float y = MotionEventCompat.getY(ev, pointerIndex);
-			final float xDiff = Math.abs(x - mInitialMotionX);
-			final float yDiff = Math.abs(y - mInitialMotionY);
-			DEBUG_LOG("***Moved to " + x + "," + y + " diff=" + xDiff + "," + yDiff);
-			onTouchMove(x, y, xDiff, yDiff, true);
-			break;
+		if (MotionEventCompat.getActionMasked(ev) == MotionEvent.ACTION_DOWN && ev.getEdgeFlags() != 0) {
+			// Don't handle edge touches immediately -- they may actually belong to one of our descendants.
+			return false;
 		}
-		case MotionEvent.ACTION_POINTER_UP:
-			onTouchPointerUp(ev);
-			break;
+		PanelTrace.beginSection(PanelTrace.TOUCH);
+		try {
+			return mTouchPipeline.onTouchEvent(mTouchEvent);
+		} finally {
+			PanelTrace.endSection();
 		}
+	}
 
-		if (mVelocityTracker == null) {
-			mVelocityTracker = VelocityTracker.obtain();
-		}
-		mVelocityTracker.addMovement(ev);
+	/**
+	 * Let the open panel be dragged from a strip along its top edge, touches elsewhere go to the
+	 * content without any work of the panel. With 0 and no handle set by
+	 * {@link #setDragHandle(View)}, the open panel leaves all touches alone and is only closed by
+	 * {@link #closePanel()}.
+	 * 
+	 * @param size
+	 *            Height of the strip in pixels.
+	 */
+	public void setDragEdgeSize(int size) {
+		mTouchPipeline.setDragEdgeSize(size);
+	}
 
-		// The only time we want to intercept motion events is if we are in the drag mode.
-		return mIsBeingDragged;
+	/**
+	 * Let the open panel be dragged only from the given view, e.g. a grip shown above the content,
+	 * and from the strip set by {@link #setDragEdgeSize(int)}. Touches elsewhere go to the content
+	 * without any work of the panel.
+	 * 
+	 * @param handle
+	 *            Any view in the same window, or null to drop the handle.
+	 */
+	public void setDragHandle(View handle) {
+		mDragHandle = handle;
 	}
 
-	@Override
-	public boolean onTouchEvent(MotionEvent ev) {
-		if (getState() == STATE_OPENED) {
-			// disable touch handle when in opened state.
+	private boolean isInDragHandle(float x, float y) {
+		final View handle = mDragHandle;
+		if (handle == null || handle.getVisibility() != VISIBLE || handle.getWindowToken() == null) {
 			return false;
 		}
+		final int[] location = mTempLocation;
+		getLocationInWindow(location);
+		final float windowX = x + location[0];
+		final float windowY = y + location[1];
+		handle.getLocationInWindow(location);
+		return windowX >= location[0] && windowX < location[0] + handle.getWidth()
+				&& windowY >= location[1] && windowY < location[1] + handle.getHeight();
+	}
 
-		final int action = MotionEventCompat.getActionMasked(ev);
+	// nested scrolling, called by the framework on Android 5.0+, newer than the SDK this builds
+	// against, so no @Override.
+	public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+		return (nestedScrollAxes & NESTED_SCROLL_AXIS_VERTICAL) != 0 && isEnabled()
+				&& !mTouchPipeline.isBeingDragged() && !mTouchPipeline.isGestureIgnored();
+	}
 
-		if (action == MotionEvent.ACTION_DOWN && ev.getEdgeFlags() != 0) {
-			// Don't handle edge touches immediately -- they may actually belong to one of our descendants.
-			return false;
+	public void onNestedScrollAccepted(View child, View target, int nestedScrollAxes) {
+		mNestedScrollAxes = nestedScrollAxes;
+		mIsNestedScrolling = true;
+		mIsNestedDragging = false;
+		mNestedDragTotal = 0;
+	}
+
+	public int getNestedScrollAxes() {
+		return mNestedScrollAxes;
+	}
+
+	public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+		if (mIsNestedDragging) {
+			// The panel left its rest position in this gesture, it moves back before the child
+			// scrolls again.
+			consumed[1] = nestedDragBy(dy);
+		}
+	}
+
+	public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed,
+			int dyUnconsumed) {
+		if (dyUnconsumed != 0) {
+			// The child reached its scroll edge, the rest of the gesture moves the panel.
+			nestedDragBy(dyUnconsumed);
 		}
+	}
 
-		if (mVelocityTracker == null) {
-			mVelocityTracker = VelocityTracker.obtain();
-		}
-		mVelocityTracker.addMovement(ev);
-
-		switch (action) {
-		case MotionEvent.ACTION_DOWN: {
-			onTouchDown(ev, false);
-			DEBUG_LOG("Down at " + mLastMotionX + "," + mLastMotionY
-					+ " mIsBeingDragged=" + mIsBeingDragged
-					+ " mIsUnableToDrag=" + mIsUnableToDrag);
-			break;
-		}
-		case MotionEvent.ACTION_MOVE: {
-			final int activePointerId = mActivePointerId;
-			if (activePointerId == INVALID_POINTER || mIsUnableToDrag) {
-				// If we don't have a valid id, the touch down wasn't on content.
-				break;
-			}
-			final int pointerIndex = MotionEventCompat.findPointerIndex(ev, activePointerId);
-			final float x = MotionEventCompat.getX(ev, pointerIndex);
-			final float y = MotionEventCompat.getY(ev, pointerIndex);
-			final float xDiff = Math.abs(x - mInitialMotionX);
-			final float yDiff = Math.abs(y - mInitialMotionY);
-			DEBUG_LOG("Moved to " + x + "," + y + " diff=" + xDiff + "," + yDiff);
-			onTouchMove(x, y, xDiff, yDiff, false);
-			break;
-		}
-		case MotionEvent.ACTION_UP: {
-			if (mIsBeingDragged) {
-				final VelocityTracker velocityTracker = mVelocityTracker;
-				velocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
-				final int initialVelocity = (int) VelocityTrackerCompat.getYVelocity(
-						velocityTracker, mActivePointerId);
-				final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
-				final float y = MotionEventCompat.getY(ev, pointerIndex);
-				final int totalDelta = (int) (y - mInitialMotionY);
-				boolean toOpen = determineToOpen(initialVelocity, totalDelta);
-				startFling(toOpen, initialVelocity);
-				endDrag();
-			}
-			DEBUG_LOG("Touch up!!!");
-			break;
-		}
-		case MotionEvent.ACTION_CANCEL: {
-			if (mIsBeingDragged) {
-				startFling(isOpen(), 0);
-				endDrag();
-			}
-			DEBUG_LOG("Touch cancel!!!");
-			break;
-		}
-		case MotionEventCompat.ACTION_POINTER_DOWN: {
-			final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-			final float x = MotionEventCompat.getX(ev, pointerIndex);
-			final float y = MotionEventCompat.getY(ev, pointerIndex);
-			mLastMotionX = x;
-			mLastMotionY = y;
-			mActivePointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
-			break;
-		}
-		case MotionEvent.ACTION_POINTER_UP:
-			onTouchPointerUp(ev);
-			break;
+	public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+		if (!mIsNestedDragging) {
+			return false;
 		}
+		// Scroll velocity points the other way than touch velocity.
+		final int velocity = (int) Math.max(-mMaximumVelocity, Math.min(mMaximumVelocity, -velocityY));
+		mEventLog.log(PanelEventLog.EVENT_TOUCH_UP, getScrollY(), velocity, mState);
+		startFling(determineToOpen(velocity, -mNestedDragTotal), velocity);
+		endNestedDrag();
+		return true;
+	}
 
+	public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+		if (consumed || mIsNestedDragging || getState() == STATE_DRAGGING) {
+			return false;
+		}
+		// The child was at its scroll edge already, the fling goes to the panel.
+		final boolean toOpen = velocityY > 0;
+		if (toOpen == isOpen() || !canStartDrag()) {
+			return false;
+		}
+		if (mCoordinator != null) {
+			mCoordinator.releaseDrag(this);
+		}
+		final int velocity = (int) Math.max(-mMaximumVelocity, Math.min(mMaximumVelocity, -velocityY));
+		startFling(toOpen, velocity);
 		return true;
 	}
 
-	private void onTouchDown(MotionEvent ev, boolean intercept) {
-		// Remember location of down touch.
-		// ACTION_DOWN always refers to pointer index 0.
-		mLastMotionX = mInitialMotionX = ev.getX();
-		mLastMotionY = mInitialMotionY = ev.getY();
-		mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
-		if (intercept) {
-			mIsUnableToDrag = false;
-			mScroller.computeScrollOffset();
-			if (getState() == STATE_FLING) {
-				// Let the user 'catch' the pager as it animates.
-				mScroller.abortAnimation();
-				mIsBeingDragged = true;
-				requestParentDisallowInterceptTouchEvent(true);
-				setState(STATE_DRAGGING);
-			} else {
-				completeScroll(false);
-				mIsBeingDragged = false;
-			}
-		} else {
-			mScroller.abortAnimation();
+	public void onStopNestedScroll(View target) {
+		mIsNestedScrolling = false;
+		mNestedScrollAxes = 0;
+		if (mIsNestedDragging) {
+			// Released without a fling, settle from where the panel is.
+			startFling(determineToOpen(0, -mNestedDragTotal), 0);
+			endNestedDrag();
 		}
 	}
 
-	private void onTouchMove(float x, float y, float xDiff, float yDiff, boolean intercept) {
-		if (!mIsBeingDragged) {
-			if (yDiff > mTouchSlop && yDiff * 0.5f > xDiff) {
-				DEBUG_LOG((intercept ? "***" : "") + "Starting drag!!!");
-				mIsBeingDragged = true;
-				requestParentDisallowInterceptTouchEvent(true);
-				setState(STATE_DRAGGING);
-				mLastMotionX = x > mInitialMotionX ? mInitialMotionX + mTouchSlop :
-						mInitialMotionX - mTouchSlop;
-				mLastMotionY = y > mInitialMotionY ? mInitialMotionY + mTouchSlop :
-						mInitialMotionY - mTouchSlop;
-			} else if (xDiff > mTouchSlop) {
-				// The finger has moved enough in the horizontally
-				// direction to be counted as a drag... abort
-				// any attempt to drag vertical, to work correctly
-				// with children that have scrolling containers.
-				DEBUG_LOG((intercept ? "***" : "") + "Unable to drag!!!");
-				mIsUnableToDrag = true;
-			}
+	/**
+	 * Move the panel by dy pixels of nested scroll, starting a drag when it leaves its position.
+	 * 
+	 * @return pixels actually moved.
+	 */
+	private int nestedDragBy(int dy) {
+		final int scrollY = getScrollY();
+		final int y = (int) PanelMotion.clampScroll(scrollY + dy, getHeight());
+		if (y == scrollY) {
+			return 0;
 		}
-		// Not else! Note that mIsBeingDragged can be set above.
-		if (mIsBeingDragged) {
-			// Scroll to follow the motion event
-			if (performDrag(x, y)) {
-				ViewCompat.postInvalidateOnAnimation(this);
+		if (!mIsNestedDragging) {
+			if (!canStartDrag()) {
+				return 0;
 			}
+			// Catch a running settle like a touch would.
+			abortSettle();
+			ensureLazyChild(false);
+			mIsNestedDragging = true;
+			setState(STATE_DRAGGING);
 		}
+		scrollTo(getScrollX(), y);
+		onPanelScrolled(y);
+		mNestedDragTotal += y - scrollY;
+		return y - scrollY;
 	}
 
-	private void onTouchPointerUp(MotionEvent ev) {
-		final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-		final int pointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
-		if (pointerId == mActivePointerId) {
-			// This was our active pointer going up. Choose a new
-			// active pointer and adjust accordingly.
-			final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-			mLastMotionX = MotionEventCompat.getX(ev, newPointerIndex);
-			mLastMotionY = MotionEventCompat.getY(ev, newPointerIndex);
-			mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
-			if (mVelocityTracker != null) {
-				mVelocityTracker.clear();
-			}
+	private void endNestedDrag() {
+		mIsNestedDragging = false;
+		mNestedDragTotal = 0;
+		if (mCoordinator != null) {
+			mCoordinator.releaseDrag(this);
 		}
 	}
 
-	private void requestParentDisallowInterceptTouchEvent(boolean disallowIntercept) {
-		final ViewParent parent = getParent();
-		if (parent != null) {
-			parent.requestDisallowInterceptTouchEvent(disallowIntercept);
+	private PanelVelocityEstimator obtainVelocityEstimator() {
+		if (mCoordinator != null) {
+			return mCoordinator.obtainVelocityEstimator(this);
 		}
+		return mVelocityEstimator;
 	}
 
-	private boolean performDrag(float x, float y) {
-		boolean needsInvalidate = false;
-
-		// final float deltaX = mLastMotionX - x;
-		final float deltaY = mLastMotionY - y;
-		mLastMotionX = x;
-		mLastMotionY = y;
-
-		float oldScrollY = getScrollY();
-		float scrollY = oldScrollY + deltaY;
-		final int height = getHeight();
+	private void clearVelocityEstimator() {
+		if (mCoordinator != null) {
+			mCoordinator.clearVelocityEstimator(this);
+		} else {
+			mVelocityEstimator.clear();
+		}
+	}
 
-		float topBound = height;
-		float bottomBound = 0;
+	private boolean canStartDrag() {
+		return mCoordinator == null || mCoordinator.requestDrag(this);
+	}
 
-		if (scrollY > topBound) {
-			scrollY = topBound;
-		} else if (scrollY < bottomBound) {
-			scrollY = bottomBound;
+	@Override
+	public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+		if (disallowIntercept && mLayerState == LAYER_STATE_PREWARMED) {
+			// A child takes the gesture over, the panel won't see its end to release the layer.
+			releaseLayer();
 		}
-		// Don't lose the rounded component
-		mLastMotionY += scrollY - (int) scrollY;
-		scrollTo(getScrollX(), (int) scrollY);
-		onPanelScrolled(scrollY);
-
-		return needsInvalidate;
+		super.requestDisallowInterceptTouchEvent(disallowIntercept);
 	}
 
-	private void endDrag() {
-		mIsBeingDragged = false;
-		mIsUnableToDrag = false;
-		mActivePointerId = INVALID_POINTER;
-		if (mVelocityTracker != null) {
-			mVelocityTracker.recycle();
-			mVelocityTracker = null;
+	private void requestParentDisallowInterceptTouchEvent(boolean disallowIntercept) {
+		final ViewParent parent = getParent();
+		if (parent != null) {
+			parent.requestDisallowInterceptTouchEvent(disallowIntercept);
 		}
 	}
 
 	private void enableLayers(boolean enable) {
 		final int childCount = getChildCount();
 		for (int i = 0; i < childCount; i++) {
+			final View child = getChildAt(i);
 			final int layerType = enable ?
 					ViewCompat.LAYER_TYPE_HARDWARE : ViewCompat.LAYER_TYPE_NONE;
-			ViewCompat.setLayerType(getChildAt(i), layerType, null);
+			ViewCompat.setLayerType(child, layerType, null);
+			if (enable && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+					&& child.getWindowToken() != null) {
+				// Render the layer now instead of on the first frame that moves it.
+				child.buildLayer();
+			}
 		}
 	}
 
 	private void setScrollingCacheEnabled(boolean enabled) {
 		if (mScrollingCacheEnabled != enabled) {
 			mScrollingCacheEnabled = enabled;
-			if (USE_CACHE) {
-				final int size = getChildCount();
-				for (int i = 0; i < size; ++i) {
-					final View child = getChildAt(i);
-					if (child.getVisibility() != GONE) {
-						child.setDrawingCacheEnabled(enabled);
-					}
+			if (mSnapshotEnabled) {
+				if (enabled) {
+					// Freeze the child as it looks when it starts moving.
+					mSnapshot.invalidate();
 				}
+				invalidate();
 			}
 		}
 	}
 
 	// fling
-	private boolean determineToOpen(int velocity, int deltaX) {
-		final int height = getHeight();
-		final int scrollY = getScrollY();
-		boolean toOpen;
-		if (Math.abs(deltaX) > mFlingDistance && Math.abs(velocity) > mMinimumVelocity) {
-			toOpen = velocity < 0 ? true : false;
-		} else {
-			int deltaHeight;
-			if (isOpen()) {
-				deltaHeight = (int) (height * 0.7);
-			} else {
-				deltaHeight = (int) (height * 0.3);
-			}
-			toOpen = scrollY > deltaHeight ? true : false;
-		}
-		return toOpen;
+	private boolean determineToOpen(int velocity, int totalDelta) {
+		return mMotion.determineToOpen(velocity, totalDelta, getScrollY(), getHeight(), isOpen());
 	}
 
 	private void startFling(boolean isOpen, int velocity) {
@@ -622,15 +2093,34 @@ public class SlidingUpPanel extends ViewGroup {
 	}
 
 	private void smoothScrollTo(int x, int y, int velocity) {
-		if (getChildCount() == 0) {
+		smoothScrollTo(x, y, velocity, -1, mInterpolator);
+	}
+
+	/**
+	 * @param duration
+	 *            Duration in milliseconds, or -1 to derive it from the distance and velocity.
+	 */
+	private void smoothScrollTo(int x, int y, int velocity, int duration, Interpolator interpolator) {
+		final int height = getHeight();
+		// Before the first layout the target is where mIsOpen says.
+		if (height > 0 ? y < height : !mIsOpen) {
+			// The child shows at the target, a settle to fully open doesn't need it.
+			ensureLazyChild(false);
+		}
+		if (!hasChild()) {
 			// Nothing to do.
 			return;
 		}
+		// The latest request wins over a coalesced animation not started yet.
+		mHasPendingAnimation = false;
+		mPendingOffset = -1f;
+		abortTranslationSettle();
+		mIsPhysicsRunning = false;
+		mSettle.abort();
 		final int sx = getScrollX();
 		final int sy = getScrollY();
 		final int dx = x - sx;
 		final int dy = y - sy;
-		final int height = getHeight();
 
 		if ((dx == 0 && dy == 0) || height == 0) {
 			completeScroll(false);
@@ -639,70 +2129,162 @@ public class SlidingUpPanel extends ViewGroup {
 		}
 
 		setState(STATE_FLING);
+		mEventLog.log(PanelEventLog.EVENT_SETTLE_START, sy, velocity, mState);
 
-		final int halfHeight = height / 2;
-		final float distanceRatio = Math.min(1f, 1.0f * Math.abs(dy) / height);
-		final float distance = halfHeight + halfHeight *
-				distanceInfluenceForSnapDuration(distanceRatio);
+		if (mPhysics != null && duration < 0 && mMoveMode == MOVE_MODE_SCROLL) {
+			if (DEBUG) {
+				DEBUG_LOG("smoothScrollTo physics y=" + y + ", velocity=" + velocity);
+			}
+			beginFrameMetrics(PanelFrameMetrics.GESTURE_FLING, 0);
+			// Touch velocity points the other way than scrolling.
+			mPhysics.start(sy, -velocity, y);
+			mPhysicsTargetY = y;
+			mHasPhysicsStartTime = false;
+			mIsPhysicsRunning = true;
+			mFrameScheduler.postFrame();
+			return;
+		}
 
-		int duration = 0;
-		velocity = Math.abs(velocity);
-		velocity = Math.max(velocity, mMinimumVelocity);
-		duration = 4 * Math.round(1000 * Math.abs(distance / velocity));
-		duration = Math.min(duration, MAX_SETTLE_DURATION);
+		if (duration < 0) {
+			duration = mMotion.computeSettleDuration(dy, height, velocity);
+		}
 
-		DEBUG_LOG("smoothScrollTo x" + x + ", y=" + y +
-				", velocity=" + velocity +
-				", distance=" + distance +
-				", duration=" + duration);
+		if (DEBUG) {
+			DEBUG_LOG("smoothScrollTo x" + x + ", y=" + y +
+					", velocity=" + velocity +
+					", duration=" + duration);
+		}
+		beginFrameMetrics(PanelFrameMetrics.GESTURE_FLING, duration);
 
-		mScroller.startScroll(sx, sy, dx, dy, duration);
-		ViewCompat.postInvalidateOnAnimation(this);
+		if (mMoveMode == MOVE_MODE_TRANSLATION && getChildCount() > 0) {
+			if (mTranslationSettle == null) {
+				mTranslationSettle = new PanelTranslationSettle(mTranslationSettleCallback);
+			}
+			mTranslationSettle.start(getChildAt(0), sy, y, duration, interpolator);
+			// Only to report the offset, the animator moves the child.
+			mFrameScheduler.postFrame();
+			return;
+		}
+		mSettle.start(sy, y, duration, mFrameScheduler.getFrameIntervalNanos(), interpolator);
+		mFrameScheduler.postFrame();
 	}
 
 	@Override
 	public void computeScroll() {
-		if (!mScroller.isFinished() && mScroller.computeScrollOffset()) {
-			int oldX = getScrollX();
-			int oldY = getScrollY();
-			int x = mScroller.getCurrX();
-			int y = mScroller.getCurrY();
+		PanelTrace.beginSection(PanelTrace.COMPUTE_SCROLL);
+		try {
+			doComputeScroll();
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
 
-			if (oldX != x || oldY != y) {
-				scrollTo(x, y);
-				onPanelScrolled(y);
+	private void doComputeScroll() {
+		if (mFrameMetrics != null && mFrameMetrics.isRecording()) {
+			mFrameMetrics.onFrame();
+		}
+		if (mFidelity != null && mFidelity.isMoving()) {
+			final long slowFrameNanos = mSlowFrameNanos > 0 ? mSlowFrameNanos
+					: mFrameScheduler.getFrameIntervalNanos() * 3 / 2;
+			if (mFidelity.onFrame(System.nanoTime(), slowFrameNanos)) {
+				dispatchFidelityChanged(true);
 			}
-
-			// Keep on drawing until the animation has finished.
-			ViewCompat.postInvalidateOnAnimation(this);
-			return;
 		}
+	}
+
+	/**
+	 * Advance the running settle to the vsync time of the frame about to be drawn. No further frame
+	 * is requested once the panel is at rest.
+	 */
+	private void onSettleFrame(long frameTimeNanos) {
+		PanelTrace.beginSection(PanelTrace.SETTLE_FRAME);
+		mIsInSettleFrame = true;
+		try {
+			if (isTranslationSettleRunning()) {
+				// The animator ends the settle, report where it shows the child.
+				onPanelScrolled(mTranslationSettle.getCurrentScrollY());
+				mFrameScheduler.postFrame();
+				return;
+			} else if (mIsPhysicsRunning) {
+				if (!mHasPhysicsStartTime) {
+					// Start one frame back, so the first frame already moves.
+					mHasPhysicsStartTime = true;
+					mPhysicsStartTimeNanos = frameTimeNanos - mFrameScheduler.getFrameIntervalNanos();
+				}
+				final long elapsed = (frameTimeNanos - mPhysicsStartTimeNanos) / 1000000L;
+				if (mPhysics.computeAt(elapsed)) {
+					// Overshoot past the bounds bounces back, like the bounce interpolator.
+					final int y = (int) PanelMotion.clampScroll(mPhysics.getPosition(), getHeight());
+					if (getScrollY() != y) {
+						scrollTo(getScrollX(), y);
+						onPanelScrolled(y);
+					}
+					mFrameScheduler.postFrame();
+					return;
+				}
+			} else if (!mSettle.isFinished()) {
+				final boolean more = mSettle.computeAt(frameTimeNanos);
+				final int y = mSettle.getCurrY();
+				if (getScrollY() != y) {
+					scrollTo(getScrollX(), y);
+					onPanelScrolled(y);
+				}
+				if (more) {
+					mFrameScheduler.postFrame();
+					return;
+				}
+			} else {
+				return;
+			}
 
-		// Done with scroll, clean up state.
-		completeScroll(true);
+			// Done with scroll, clean up state.
+			completeScroll(true);
+		} finally {
+			mIsInSettleFrame = false;
+			dispatchSettleFrameScroll();
+			PanelTrace.endSection();
+		}
 	}
 
-	// We want the duration of the page snap animation to be influenced by the distance that
-	// the screen has to travel, however, we don't want this duration to be effected in a
-	// purely linear fashion. Instead, we use this method to moderate the effect that the distance
-	// of travel has on the overall snap duration.
-	private float distanceInfluenceForSnapDuration(float f) {
-		f -= 0.5f; // center the values about 0.
-		f *= 0.3f * Math.PI / 2.0f;
-		return (float) Math.sin(f);
+	/**
+	 * Report the scroll of the settle frame that just ran to the scroll listeners, together with a
+	 * touch scroll of the same frame still waiting for its dispatch.
+	 */
+	private void dispatchSettleFrameScroll() {
+		if (mHasSettleFrameScroll) {
+			mHasSettleFrameScroll = false;
+			if (mIsScrollDispatchPending) {
+				removeCallbacks(mDispatchScrollRunnable);
+			}
+			mDispatchScrollRunnable.run();
+		}
 	}
 
 	private void completeScroll(boolean postEvents) {
 		if (getState() == STATE_FLING) {
 			// Done with scroll, no longer want to cache view drawing.
-			mScroller.abortAnimation();
-			int oldX = getScrollX();
-			int oldY = getScrollY();
-			int x = mScroller.getCurrX();
-			int y = mScroller.getCurrY();
-			if (oldX != x || oldY != y) {
-				scrollTo(x, y);
+			if (isTranslationSettleRunning()) {
+				final int y = mTranslationSettle.finish();
+				if (getScrollY() != y) {
+					scrollTo(getScrollX(), y);
+					onPanelScrolled(y);
+				}
+			} else if (mIsPhysicsRunning) {
+				mIsPhysicsRunning = false;
+				if (getScrollY() != mPhysicsTargetY) {
+					scrollTo(getScrollX(), mPhysicsTargetY);
+					onPanelScrolled(mPhysicsTargetY);
+				}
+			} else if (!mSettle.isFinished()) {
+				mSettle.finish();
+				final int y = mSettle.getFinalY();
+				if (getScrollY() != y) {
+					scrollTo(getScrollX(), y);
+					onPanelScrolled(y);
+				}
 			}
+			mFrameScheduler.cancelFrame();
+			mEventLog.log(PanelEventLog.EVENT_SETTLE_END, getScrollY(), 0f, mState);
 			if (postEvents) {
 				ViewCompat.postOnAnimation(this, mEndScrollRunnable);
 			} else {
@@ -715,8 +2297,47 @@ public class SlidingUpPanel extends ViewGroup {
 	public void onRestoreInstanceState(Parcelable state) {
 		SavedState savedState = (SavedState) state;
 		super.onRestoreInstanceState(savedState.getSuperState());
-		mIsOpen = savedState.isOpen;
-		requestLayout();
+		if (savedState.state == STATE_DRAGGING) {
+			// Nobody holds the panel any more, it rests where it was let go, and counts as open
+			// from half way like after setOffset(float).
+			mIsOpen = savedState.offset >= 0.5f;
+			mRestoredOffset = savedState.offset;
+		} else {
+			// The panel may rest in between closed and open.
+			mIsOpen = savedState.isOpen;
+			mRestoredOffset = savedState.offset;
+		}
+		mHasPendingRestore = true;
+		if (mLayoutHeight > 0) {
+			applyRestoredState(mLayoutHeight);
+		}
+	}
+
+	/**
+	 * Land on the restored position without animating, and without replaying the open or close
+	 * transitions.
+	 */
+	private void applyRestoredState(int height) {
+		mHasPendingRestore = false;
+		mPendingOffset = -1f;
+		abortSettle();
+		scrollTo(getScrollX(), Math.round(mRestoredOffset * height));
+		// Not through setState(), the restore listener is called instead of the open and close ones.
+		mState = mIsOpen ? STATE_OPENED : STATE_CLOSED;
+		releaseLayer();
+		setScrollingCacheEnabled(false);
+		updateVisibilityState();
+		updateFidelity(false);
+		// Bound views must be right on the first frame, don't wait for the next one.
+		mScrollDispatcher.dispatch(getScrollOffset());
+		if (mPropertyBindings != null) {
+			mBindingsDirty = false;
+			mPropertyBindings.apply(getScrollOffset());
+		}
+		mEventLog.log(PanelEventLog.EVENT_RESTORE, getScrollY(), 0f, mState);
+		if (mOnPanelRestoreListener != null) {
+			mOnPanelRestoreListener.onPanelRestored(mIsOpen, mRestoredOffset);
+		}
 	}
 
 	@Override
@@ -724,11 +2345,21 @@ public class SlidingUpPanel extends ViewGroup {
 		Parcelable superState = super.onSaveInstanceState();
 		SavedState savedState = new SavedState(superState);
 		savedState.isOpen = mIsOpen;
+		savedState.state = getState();
+		if (savedState.state == STATE_FLING) {
+			// Save where the fling is heading to.
+			savedState.state = mIsOpen ? STATE_OPENED : STATE_CLOSED;
+			savedState.offset = toScrollOffset(getSettleFinalY());
+		} else {
+			savedState.offset = getScrollOffset();
+		}
 		return savedState;
 	}
 
 	static class SavedState extends BaseSavedState {
 		boolean isOpen;
+		int state;
+		float offset;
 
 		public SavedState(Parcelable superState) {
 			super(superState);
@@ -737,12 +2368,16 @@ public class SlidingUpPanel extends ViewGroup {
 		private SavedState(Parcel in) {
 			super(in);
 			isOpen = in.readInt() == 1;
+			state = in.readInt();
+			offset = in.readFloat();
 		}
 
 		@Override
 		public void writeToParcel(Parcel dest, int flags) {
 			super.writeToParcel(dest, flags);
 			dest.writeInt(isOpen ? 1 : 0);
+			dest.writeInt(state);
+			dest.writeFloat(offset);
 		}
 
 		@SuppressWarnings("UnusedDeclaration")
@@ -0,0 +1,129 @@
+package com.coco.slidinguppanel;
+
+/*
+ The MIT License (MIT)
+
+ Copyright (c) 2014 justin
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy of
+ this software and associated documentation files (the "Software"), to deal in
+ the Software without restriction, including without limitation the rights to
+ use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ the Software, and to permit persons to whom the Software is furnished to do so,
+ subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in all
+ copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Damped spring evaluated in closed form, so the position at any time doesn't depend on the frame
+ * rate. A damping ratio below 1 overshoots the target, which the panel turns into a bounce at its
+ * bounds; 1 is the fastest settle without overshoot.
+ */
+public final class SpringPhysics implements PanelPhysics {
+	public static final float DEFAULT_STIFFNESS = 400f;
+	public static final float DEFAULT_DAMPING_RATIO = 0.6f;
+
+	private static final float REST_DISPLACEMENT = 0.5f; // pixels
+	private static final float REST_VELOCITY = 10f; // pixels per second
+
+	private final float mNaturalFrequency;
+	private final float mDampingRatio;
+
+	private float mTarget;
+	private float mStartDisplacement;
+	private float mStartVelocity;
+	private float mPosition;
+	private float mVelocity;
+
+	public SpringPhysics() {
+		this(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+	}
+
+	/**
+	 * @param stiffness
+	 *            Spring stiffness per unit mass, higher settles faster.
+	 * @param dampingRatio
+	 *            0 never stops oscillating, 1 is critically damped, above 1 creeps to the target.
+	 */
+	public SpringPhysics(float stiffness, float dampingRatio) {
+		if (stiffness <= 0 || dampingRatio <= 0) {
+			throw new IllegalArgumentException("stiffness and dampingRatio must be positive");
+		}
+		mNaturalFrequency = (float) Math.sqrt(stiffness);
+		mDampingRatio = dampingRatio;
+	}
+
+	@Override
+	public void start(float position, float velocity, float target) {
+		mTarget = target;
+		mStartDisplacement = position - target;
+		mStartVelocity = velocity;
+		mPosition = position;
+		mVelocity = velocity;
+	}
+
+	@Override
+	public boolean computeAt(long elapsedMillis) {
+		final double t = elapsedMillis / 1000.0;
+		final double w0 = mNaturalFrequency;
+		final double zeta = mDampingRatio;
+		final double x0 = mStartDisplacement;
+		final double v0 = mStartVelocity;
+		final double x;
+		final double v;
+		if (zeta < 1) {
+			final double wd = w0 * Math.sqrt(1 - zeta * zeta);
+			final double a = x0;
+			final double b = (v0 + zeta * w0 * x0) / wd;
+			final double envelope = Math.exp(-zeta * w0 * t);
+			final double cos = Math.cos(wd * t);
+			final double sin = Math.sin(wd * t);
+			x = envelope * (a * cos + b * sin);
+			v = envelope * ((b * wd - zeta * w0 * a) * cos - (a * wd + zeta * w0 * b) * sin);
+		} else if (zeta == 1) {
+			final double a = x0;
+			final double b = v0 + w0 * x0;
+			final double envelope = Math.exp(-w0 * t);
+			x = (a + b * t) * envelope;
+			v = (b - w0 * (a + b * t)) * envelope;
+		} else {
+			final double root = w0 * Math.sqrt(zeta * zeta - 1);
+			final double r1 = -zeta * w0 + root;
+			final double r2 = -zeta * w0 - root;
+			final double c2 = (v0 - r1 * x0) / (r2 - r1);
+			final double c1 = x0 - c2;
+			final double e1 = Math.exp(r1 * t);
+			final double e2 = Math.exp(r2 * t);
+			x = c1 * e1 + c2 * e2;
+			v = c1 * r1 * e1 + c2 * r2 * e2;
+		}
+
+		if (Math.abs(x) < REST_DISPLACEMENT && Math.abs(v) < REST_VELOCITY) {
+			mPosition = mTarget;
+			mVelocity = 0;
+			return false;
+		}
+		mPosition = (float) (mTarget + x);
+		mVelocity = (float) v;
+		return true;
+	}
+
+	@Override
+	public float getPosition() {
+		return mPosition;
+	}
+
+	@Override
+	public float getVelocity() {
+		return mVelocity;
+	}
+}
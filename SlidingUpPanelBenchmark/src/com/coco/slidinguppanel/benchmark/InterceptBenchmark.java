@@ -0,0 +1,131 @@
+package com.coco.slidinguppanel.benchmark;
+
+import android.graphics.Color;
+import android.view.MotionEvent;
+import android.widget.FrameLayout;
+
+import com.coco.slidinguppanel.SlidingUpPanel;
+
+/**
+ * Cost of {@link SlidingUpPanel#onInterceptTouchEvent(MotionEvent)} per event of a gesture, in each
+ * state the panel can be in when a gesture starts. An open panel should ignore gestures aimed at
+ * the content underneath, unless they start in its drag region.
+ */
+public class InterceptBenchmark extends PanelBenchmarkCase {
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+	private static final int EDGE = 144;
+	private static final int MOVES = 30;
+
+	private SlidingUpPanel mPanel;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				mPanel = new SlidingUpPanel(getContext());
+				final FrameLayout cover = new FrameLayout(getContext());
+				cover.setBackgroundColor(Color.DKGRAY);
+				mPanel.addView(cover);
+				layout(mPanel, WIDTH, HEIGHT);
+			}
+		});
+	}
+
+	/**
+	 * Horizontal swipe on a closed panel, e.g. a pager below, which the panel never takes.
+	 */
+	public void testClosedHorizontal() {
+		final MotionEvent[] gesture = gesture(100, HEIGHT / 2, 800, 0);
+		setUpPanel(false, 0);
+		measureGesture("intercept.closed.horizontal", gesture, false, 0);
+	}
+
+	/**
+	 * Drag up on a closed panel, reset to closed at the start of each gesture.
+	 */
+	public void testClosedDrag() {
+		final MotionEvent[] gesture = gesture(WIDTH / 2, HEIGHT - 200, 0, -600);
+		setUpPanel(false, 0);
+		measureGesture("intercept.closed.drag", gesture, true, 0f);
+	}
+
+	/**
+	 * Scrolling the content below an open panel without a drag region.
+	 */
+	public void testOpenedContent() {
+		final MotionEvent[] gesture = gesture(WIDTH / 2, HEIGHT - 200, 0, -600);
+		setUpPanel(true, 0);
+		measureGesture("intercept.opened.content", gesture, false, 0);
+	}
+
+	/**
+	 * Scrolling the content below an open panel with a drag edge, outside the edge.
+	 */
+	public void testOpenedContentWithEdge() {
+		final MotionEvent[] gesture = gesture(WIDTH / 2, HEIGHT - 200, 0, -600);
+		setUpPanel(true, EDGE);
+		measureGesture("intercept.opened.content.edge", gesture, false, 0);
+	}
+
+	/**
+	 * Dragging an open panel down from its drag edge, reset to open at the start of each gesture.
+	 */
+	public void testOpenedEdgeDrag() {
+		final MotionEvent[] gesture = gesture(WIDTH / 2, EDGE / 2, 0, 600);
+		setUpPanel(true, EDGE);
+		measureGesture("intercept.opened.edge.drag", gesture, true, 1f);
+	}
+
+	private void setUpPanel(final boolean open, final int edge) {
+		runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				mPanel.setDragEdgeSize(edge);
+				mPanel.reset(open);
+			}
+		});
+	}
+
+	/**
+	 * @param reset
+	 *            Reset the panel to offset at the start of each gesture, it moves.
+	 */
+	private void measureGesture(String name, final MotionEvent[] gesture, final boolean reset,
+			final float offset) {
+		try {
+			measure(name, gesture.length, new Operation() {
+				@Override
+				public void run(int index) {
+					if (reset && index == 0) {
+						mPanel.reset(offset);
+					}
+					mPanel.onInterceptTouchEvent(gesture[index]);
+				}
+			});
+		} finally {
+			for (MotionEvent event : gesture) {
+				event.recycle();
+			}
+		}
+	}
+
+	/**
+	 * A down at x, y, moves over dx, dy every 8ms, and an up.
+	 */
+	private static MotionEvent[] gesture(float x, float y, float dx, float dy) {
+		final MotionEvent[] events = new MotionEvent[MOVES + 2];
+		final long downTime = 1000;
+		events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+		for (int i = 1; i <= MOVES; i++) {
+			final float fraction = (float) i / MOVES;
+			events[i] = MotionEvent.obtain(downTime, downTime + i * 8, MotionEvent.ACTION_MOVE,
+					x + dx * fraction, y + dy * fraction, 0);
+		}
+		events[MOVES + 1] = MotionEvent.obtain(downTime, downTime + (MOVES + 1) * 8,
+				MotionEvent.ACTION_UP, x + dx, y + dy, 0);
+		return events;
+	}
+}
@@ -0,0 +1,80 @@
+package com.coco.slidinguppanel.benchmark;
+
+import java.util.Arrays;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/**
+ * Base of the panel benchmarks. Measures an operation on the UI thread, where the panel runs, and
+ * reports the median time per operation to logcat and as instrumentation status, so it shows with
+ * {@code am instrument -r}.
+ */
+public abstract class PanelBenchmarkCase extends InstrumentationTestCase {
+	private static final String TAG = "SlidingUpPanelBenchmark";
+	private static final int WARM_UP_RUNS = 5;
+	private static final int RUNS = 15;
+
+	/**
+	 * One benchmarked operation.
+	 */
+	protected interface Operation {
+		/**
+		 * @param index
+		 *            Index of the operation in its run.
+		 */
+		void run(int index);
+	}
+
+	protected Context getContext() {
+		return getInstrumentation().getTargetContext();
+	}
+
+	protected void runOnMainSync(Runnable runnable) {
+		getInstrumentation().runOnMainSync(runnable);
+	}
+
+	/**
+	 * Run operation operationsPerRun times per run on the UI thread, after some warm up runs.
+	 * 
+	 * @return median time of one operation in nanoseconds.
+	 */
+	protected long measure(String name, final int operationsPerRun, final Operation operation) {
+		final long[] runs = new long[RUNS];
+		runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				for (int r = -WARM_UP_RUNS; r < RUNS; r++) {
+					final long start = System.nanoTime();
+					for (int i = 0; i < operationsPerRun; i++) {
+						operation.run(i);
+					}
+					final long elapsed = System.nanoTime() - start;
+					if (r >= 0) {
+						runs[r] = elapsed;
+					}
+				}
+			}
+		});
+		Arrays.sort(runs);
+		final long median = runs[RUNS / 2] / operationsPerRun;
+		Log.i(TAG, name + ": " + median + " ns");
+		final Bundle status = new Bundle();
+		status.putLong(name, median);
+		getInstrumentation().sendStatus(0, status);
+		return median;
+	}
+
+	/**
+	 * Measure and lay out view at exactly the given size, without attaching it.
+	 */
+	protected static void layout(View view, int width, int height) {
+		view.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+				MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+		view.layout(0, 0, width, height);
+	}
+}
@@ -0,0 +1,88 @@
+package com.coco.slidinguppanel.benchmark;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.coco.slidinguppanel.SlidingUpPanel;
+
+/**
+ * Cost of binding a recycled list row holding a panel to new content, as during a fast list
+ * scroll: {@link SlidingUpPanel#reset(boolean)} and {@link SlidingUpPanel#reset(float)} against
+ * creating a fresh panel for the row.
+ */
+public class RowBindBenchmark extends PanelBenchmarkCase {
+	private static final int ROWS = 24;
+	private static final int ROW_WIDTH = 1080;
+	private static final int ROW_HEIGHT = 480;
+
+	private SlidingUpPanel[] mRows;
+	private int mBinds;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		runOnMainSync(new Runnable() {
+			@Override
+			public void run() {
+				mRows = new SlidingUpPanel[ROWS];
+				for (int i = 0; i < ROWS; i++) {
+					mRows[i] = createRow(getContext());
+				}
+			}
+		});
+	}
+
+	public void testResetToState() {
+		measure("row.reset(state)", ROWS, new Operation() {
+			@Override
+			public void run(int index) {
+				// A third of the rows is bound open, so every bind changes some rows.
+				mRows[index].reset(mBinds++ % 3 == 0);
+			}
+		});
+	}
+
+	public void testResetToOffset() {
+		measure("row.reset(offset)", ROWS, new Operation() {
+			@Override
+			public void run(int index) {
+				mRows[index].reset((mBinds++ % 5) / 4f);
+			}
+		});
+	}
+
+	public void testResetWhileSettling() {
+		measure("row.reset(settling)", ROWS, new Operation() {
+			@Override
+			public void run(int index) {
+				// The row was flung open before it scrolled out.
+				final SlidingUpPanel row = mRows[index];
+				row.openPanel();
+				row.reset(false);
+			}
+		});
+	}
+
+	public void testFreshPanel() {
+		measure("row.new", ROWS, new Operation() {
+			@Override
+			public void run(int index) {
+				createRow(getContext());
+			}
+		});
+	}
+
+	private static SlidingUpPanel createRow(Context context) {
+		final SlidingUpPanel panel = new SlidingUpPanel(context);
+		final FrameLayout cover = new FrameLayout(context);
+		cover.setBackgroundColor(Color.DKGRAY);
+		final TextView title = new TextView(context);
+		title.setText("Row");
+		cover.addView(title);
+		panel.addView(cover);
+		layout(panel, ROW_WIDTH, ROW_HEIGHT);
+		return panel;
+	}
+}
@@ -0,0 +1,54 @@
+package com.coco.slidinguppanel.benchmark;
+
+import android.view.LayoutInflater;
+
+import com.coco.slidinguppanel.SlidingUpPanel;
+
+/**
+ * Start up cost of a screen restored with its panel open, where the cover is never seen: creating
+ * the panel, its child and the first layout, with the child inflated eagerly or set as a lazy
+ * child. The lazy panel restored closed shows what is left when the cover is needed after all.
+ */
+public class StartupBenchmark extends PanelBenchmarkCase {
+	private static final int STARTS = 10;
+	private static final int WIDTH = 1080;
+	private static final int HEIGHT = 1920;
+
+	public void testEagerRestoredOpen() {
+		measure("startup.eager.open", STARTS, new Operation() {
+			@Override
+			public void run(int index) {
+				final SlidingUpPanel panel = new SlidingUpPanel(getContext());
+				LayoutInflater.from(getContext()).inflate(R.layout.benchmark_cover, panel, true);
+				panel.reset(true);
+				layout(panel, WIDTH, HEIGHT);
+			}
+		});
+	}
+
+	public void testLazyRestoredOpen() {
+		measure("startup.lazy.open", STARTS, new Operation() {
+			@Override
+			public void run(int index) {
+				final SlidingUpPanel panel = new SlidingUpPanel(getContext());
+				panel.setLazyChild(R.layout.benchmark_cover);
+				panel.reset(true);
+				layout(panel, WIDTH, HEIGHT);
+				assertTrue(panel.isLazyChildPending());
+			}
+		});
+	}
+
+	public void testLazyRestoredClosed() {
+		measure("startup.lazy.closed", STARTS, new Operation() {
+			@Override
+			public void run(int index) {
+				final SlidingUpPanel panel = new SlidingUpPanel(getContext());
+				panel.setLazyChild(R.layout.benchmark_cover);
+				panel.reset(false);
+				layout(panel, WIDTH, HEIGHT);
+				assertFalse(panel.isLazyChildPending());
+			}
+		});
+	}
+}
@@ -0,0 +1,84 @@
+package com.coco.slidinguppanel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one frame of the motion coordinator with dozens of attached panels, a few of them
+ * settling, as in a list of panels where only the touched ones move. Each settling panel runs its
+ * {@link PanelSettle} like SlidingUpPanel.onSettleFrame does. The cost should follow the number of
+ * settling panels, not the number of attached ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PanelFrameDispatcherBenchmark {
+	private static final int HEIGHT = 1920;
+	private static final int DURATION = 600; // ms
+
+	private static final class Panel implements PanelFrameScheduler.Callback {
+		final PanelSettle mSettle = new PanelSettle();
+		PanelFrameScheduler mScheduler;
+		int mScrollY;
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			final boolean more = mSettle.computeAt(frameTimeNanos);
+			mScrollY = mSettle.getCurrY();
+			if (more) {
+				mScheduler.postFrame();
+			}
+		}
+	}
+
+	@Param({ "8", "32", "64" })
+	public int panels;
+
+	@Param({ "1", "4" })
+	public int settling;
+
+	private final PanelFrameDispatcher mDispatcher = new PanelFrameDispatcher();
+	private FakeChoreographer mChoreographer;
+	private Panel[] mPanels;
+
+	@Setup
+	public void setUp() {
+		mChoreographer = new FakeChoreographer(60, mDispatcher);
+		mDispatcher.setFrameScheduler(mChoreographer);
+		mPanels = new Panel[panels];
+		for (int i = 0; i < panels; i++) {
+			mPanels[i] = new Panel();
+			mPanels[i].mScheduler = mDispatcher.createScheduler(mPanels[i]);
+		}
+	}
+
+	@Benchmark
+	public int frame() {
+		// Spread the settling panels over the list, restarting the ones that came to rest.
+		final int stride = panels / settling;
+		for (int i = 0; i < settling; i++) {
+			final Panel panel = mPanels[i * stride];
+			if (panel.mSettle.isFinished()) {
+				panel.mSettle.start(panel.mScrollY, panel.mScrollY == 0 ? HEIGHT : 0, DURATION,
+						mChoreographer.getFrameIntervalNanos(), Interpolators.BOUNCE);
+				panel.mScheduler.postFrame();
+			}
+		}
+		mChoreographer.doFrame();
+		return mDispatcher.getActiveCount();
+	}
+}
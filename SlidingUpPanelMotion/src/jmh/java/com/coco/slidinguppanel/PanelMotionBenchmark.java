@@ -0,0 +1,104 @@
+package com.coco.slidinguppanel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the motion core per drag sample and per settle, on one second of drag sampled at 120Hz
+ * like current touch screens report it, and on a mix of releases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PanelMotionBenchmark {
+	private static final int HEIGHT = 1920;
+	private static final int DRAG_SAMPLES = 120;
+	private static final int RELEASES = 64;
+	private static final long FRAME_INTERVAL_NANOS = 16666667L;
+
+	private final float[] mDragY = new float[DRAG_SAMPLES];
+	private final int[] mVelocities = new int[RELEASES];
+	private final int[] mDeltas = new int[RELEASES];
+	private final int[] mScrolls = new int[RELEASES];
+	private PanelMotion mMotion;
+	private PanelSettle mSettle;
+
+	@Setup
+	public void setUp() {
+		mMotion = new PanelMotion(1200, 75);
+		mSettle = new PanelSettle();
+		// An upward drag easing out, with some jitter.
+		for (int i = 0; i < DRAG_SAMPLES; i++) {
+			final float t = (float) i / DRAG_SAMPLES;
+			mDragY[i] = HEIGHT - HEIGHT * 0.8f * (1 - (1 - t) * (1 - t)) + (i % 3) * 0.5f;
+		}
+		for (int i = 0; i < RELEASES; i++) {
+			mVelocities[i] = (i * 977 % 16000) - 8000;
+			mDeltas[i] = (i * 131 % 1200) - 600;
+			mScrolls[i] = i * 211 % HEIGHT;
+		}
+	}
+
+	/**
+	 * The scroll math of performDrag for each move sample.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(DRAG_SAMPLES)
+	public int dragSample() {
+		float lastY = mDragY[0];
+		int scrollY = 0;
+		for (int i = 1; i < DRAG_SAMPLES; i++) {
+			final float y = mDragY[i];
+			final float scroll = PanelMotion.clampScroll(scrollY + lastY - y, HEIGHT);
+			lastY = y + scroll - (int) scroll;
+			scrollY = (int) scroll;
+		}
+		return scrollY;
+	}
+
+	/**
+	 * Deciding where a release settles to and for how long.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(RELEASES)
+	public int settlePlan() {
+		int sum = 0;
+		for (int i = 0; i < RELEASES; i++) {
+			final boolean toOpen = mMotion.determineToOpen(mVelocities[i], mDeltas[i], mScrolls[i],
+					HEIGHT, (i & 1) == 0);
+			final int y = toOpen ? HEIGHT : 0;
+			sum += mMotion.computeSettleDuration(y - mScrolls[i], HEIGHT, mVelocities[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * A whole settle across the panel at 60Hz, planned and evaluated frame by frame.
+	 */
+	@Benchmark
+	public int settleFrames() {
+		final int duration = mMotion.computeSettleDuration(HEIGHT, HEIGHT, 0);
+		mSettle.start(0, HEIGHT, duration, FRAME_INTERVAL_NANOS, Interpolators.BOUNCE);
+		long frameTime = 0;
+		int sum = 0;
+		while (mSettle.computeAt(frameTime)) {
+			sum += mSettle.getCurrY();
+			frameTime += FRAME_INTERVAL_NANOS;
+		}
+		return sum;
+	}
+}
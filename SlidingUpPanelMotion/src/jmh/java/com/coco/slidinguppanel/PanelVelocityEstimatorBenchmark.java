@@ -0,0 +1,66 @@
+package com.coco.slidinguppanel;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the velocity estimator per touch sample, and per release when the fit runs over the full
+ * horizon, on one second of drag sampled at 240Hz.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PanelVelocityEstimatorBenchmark {
+	private static final int SAMPLES = 240;
+	private static final float MAX_VELOCITY = 24000;
+
+	private final long[] mTimes = new long[SAMPLES];
+	private final float[] mPositions = new float[SAMPLES];
+	private PanelVelocityEstimator mEstimator;
+	private PanelVelocityEstimator mFull;
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < SAMPLES; i++) {
+			mTimes[i] = i * 1000L / SAMPLES;
+			mPositions[i] = 1800 - 3000f * mTimes[i] / 1000f + (i % 3) * 0.5f;
+		}
+		mEstimator = new PanelVelocityEstimator();
+		mFull = new PanelVelocityEstimator();
+		mFull.handOff(0, mPositions[0], Float.NaN);
+		for (int i = 0; i < SAMPLES; i++) {
+			mFull.addSample(mTimes[i], mPositions[i]);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public PanelVelocityEstimator addSample() {
+		final PanelVelocityEstimator estimator = mEstimator;
+		estimator.clear();
+		estimator.handOff(0, mPositions[0], Float.NaN);
+		for (int i = 0; i < SAMPLES; i++) {
+			estimator.addSample(mTimes[i], mPositions[i]);
+		}
+		return estimator;
+	}
+
+	@Benchmark
+	public float getVelocity() {
+		return mFull.getVelocity(MAX_VELOCITY);
+	}
+}
@@ -0,0 +1,11 @@
+package android.os;
+
+/**
+ * Compile time stand-in for the Android SDK class of the same name, reporting the API level that
+ * has {@link Trace}. Only used to build the motion core on the JVM, never packaged.
+ */
+public class Build {
+	public static class VERSION {
+		public static final int SDK_INT = 18;
+	}
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stand-in for the Android SDK class of the same name, which PanelTrace calls by reflection. Records
+ * nothing. Only used to build the motion core on the JVM, never packaged.
+ */
+public final class Trace {
+	private Trace() {
+	}
+
+	public static void beginSection(String sectionName) {
+	}
+
+	public static void endSection() {
+	}
+}
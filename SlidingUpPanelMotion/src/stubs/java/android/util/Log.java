@@ -0,0 +1,15 @@
+package android.util;
+
+/**
+ * Compile time stand-in for the Android SDK class of the same name. Only used to build the motion
+ * core on the JVM, never packaged.
+ */
+public final class Log {
+	private Log() {
+	}
+
+	public static int w(String tag, String msg, Throwable tr) {
+		System.err.println(tag + ": " + msg + ": " + tr);
+		return 0;
+	}
+}
@@ -0,0 +1,9 @@
+package android.view.animation;
+
+/**
+ * Compile time stand-in for the Android SDK interface of the same name, which the motion core takes
+ * its timing curves as. Only used to build the motion core on the JVM, never packaged.
+ */
+public interface Interpolator {
+	float getInterpolation(float input);
+}
@@ -0,0 +1,44 @@
+package com.coco.slidinguppanel;
+
+/**
+ * Vsync at a fixed refresh rate, frames run only when asked for with {@link #doFrame()}.
+ */
+final class FakeChoreographer extends PanelFrameScheduler {
+	private final long mFrameIntervalNanos;
+	private long mFrameTimeNanos = 1000000000L;
+	private int mPosts;
+
+	FakeChoreographer(int refreshRate, Callback callback) {
+		super(callback);
+		mFrameIntervalNanos = 1000000000L / refreshRate;
+	}
+
+	@Override
+	long getFrameIntervalNanos() {
+		return mFrameIntervalNanos;
+	}
+
+	@Override
+	protected void onPostFrame() {
+		mPosts++;
+	}
+
+	@Override
+	protected void onCancelFrame() {
+	}
+
+	/**
+	 * Run the next frame with its vsync time, however late the callback itself runs.
+	 */
+	void doFrame() {
+		mFrameTimeNanos += mFrameIntervalNanos;
+		dispatchFrame(mFrameTimeNanos);
+	}
+
+	/**
+	 * @return how often a frame was posted.
+	 */
+	int getPostCount() {
+		return mPosts;
+	}
+}
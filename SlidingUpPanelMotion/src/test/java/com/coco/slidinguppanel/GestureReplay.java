@@ -0,0 +1,456 @@
+package com.coco.slidinguppanel;
+
+import java.io.IOException;
+
+import android.view.animation.Interpolator;
+
+/**
+ * Headless {@link SlidingUpPanel}: the touch events of a recorded trace go through the
+ * {@link PanelTouchPipeline} the panel delegates to, dispatched like a ViewGroup does with an
+ * optional child taking the touches, and the settle runs on the motion core at vsync frame times.
+ * State changes, the drag region, scroll dispatch and trace sections follow the panel, so traces
+ * replay without a device and allocate nothing per event once warm.
+ */
+final class GestureReplay implements PanelTouchPipeline.Host {
+	// Defaults of a 3x density screen.
+	static final int TOUCH_SLOP = 48; // px, paging touch slop of 16dp
+	static final int MIN_VELOCITY = 1200; // px per s, 400dp
+	static final int FLING_DISTANCE = 75; // px, 25dp
+	static final int MAX_VELOCITY = 24000; // px per s, 8000dp
+	static final int MAX_PREDICTION_DISTANCE = 72; // px, 24dp
+	static final long FRAME_INTERVAL_60HZ = 16666667L;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	// states, as in SlidingUpPanel
+	static final int STATE_CLOSED = 0;
+	static final int STATE_OPENED = 1;
+	static final int STATE_DRAGGING = 2;
+	static final int STATE_FLING = 3;
+
+	/**
+	 * Frames at vsync multiples of the replay clock, run by {@link GestureReplay#runFrames(long)}.
+	 */
+	private final class ReplayScheduler extends PanelFrameScheduler {
+		ReplayScheduler(Callback callback) {
+			super(callback);
+		}
+
+		@Override
+		long getFrameIntervalNanos() {
+			return mFrameIntervalNanos;
+		}
+
+		@Override
+		protected void onPostFrame() {
+		}
+
+		@Override
+		protected void onCancelFrame() {
+		}
+	}
+
+	private final int mHeight;
+	private final PanelMotion mMotion = new PanelMotion(MIN_VELOCITY, FLING_DISTANCE);
+	private final PanelVelocityEstimator mEstimator = new PanelVelocityEstimator();
+	private final PanelTouchPipeline mPipeline;
+	private final PanelSettle mSettle = new PanelSettle();
+	private final Interpolator mInterpolator;
+	private final PanelPhysics mPhysics;
+	private final long mFrameIntervalNanos;
+	private final PanelFrameScheduler mScheduler;
+
+	// panel
+	private int mState = STATE_CLOSED;
+	private boolean mIsOpen;
+	private int mScrollY;
+	private boolean mIsPhysicsRunning;
+	private boolean mHasSettleStartTime;
+	private long mSettleStartNanos;
+	private long mLastSettleNanos;
+	private int mFrames;
+
+	// scroll dispatch
+	private boolean mIsScrollDispatchPending;
+	private boolean mIsInSettleFrame;
+	private boolean mHasSettleFrameScroll;
+	private int mScrollDispatches;
+
+	// touch dispatch
+	private boolean mChildTakesTouches;
+	private boolean mHasChildTarget;
+	private boolean mIsGestureDropped;
+	private long mNowNanos;
+
+	/**
+	 * @param physics
+	 *            Physics of the settle, or null for the fixed duration settle with interpolator.
+	 */
+	GestureReplay(int height, Interpolator interpolator, PanelPhysics physics, long frameIntervalNanos) {
+		mHeight = height;
+		mInterpolator = interpolator;
+		mPhysics = physics;
+		mFrameIntervalNanos = frameIntervalNanos;
+		mPipeline = new PanelTouchPipeline(this, mMotion, TOUCH_SLOP, MAX_VELOCITY, MAX_PREDICTION_DISTANCE);
+		mScheduler = new ReplayScheduler(new PanelFrameScheduler.Callback() {
+			@Override
+			public void doFrame(long frameTimeNanos) {
+				onSettleFrame(frameTimeNanos);
+			}
+		});
+	}
+
+	void setDragPredictionHorizon(int horizon) {
+		mPipeline.setDragPredictionHorizon(horizon);
+	}
+
+	void setDragEdgeSize(int size) {
+		mPipeline.setDragEdgeSize(size);
+	}
+
+	/**
+	 * Let a child of the panel take every gesture it gets, like a clickable content view does, so
+	 * the panel only gets a drag by intercepting it.
+	 */
+	void setChildTakesTouches(boolean takesTouches) {
+		mChildTakesTouches = takesTouches;
+	}
+
+	/**
+	 * Put the panel at rest, opened or closed, before the next gesture.
+	 */
+	void reset(boolean open) {
+		mPipeline.endDrag();
+		abortSettle();
+		mIsOpen = open;
+		mScrollY = open ? mHeight : 0;
+		setState(open ? STATE_OPENED : STATE_CLOSED);
+		mLastSettleNanos = 0;
+		mFrames = 0;
+		mIsScrollDispatchPending = false;
+		mHasSettleFrameScroll = false;
+		mScrollDispatches = 0;
+		mHasChildTarget = false;
+		mIsGestureDropped = false;
+		mNowNanos = 0;
+	}
+
+	/**
+	 * Replay all events of reader, then run the settle to rest.
+	 *
+	 * @return the number of events replayed.
+	 */
+	int replay(PanelGestureTrace.Reader reader) throws IOException {
+		int events = 0;
+		while (reader.next()) {
+			dispatchTouchEvent(reader);
+			events++;
+		}
+		runToRest();
+		return events;
+	}
+
+	/**
+	 * Run the frames of a running settle until it comes to rest.
+	 */
+	void runToRest() {
+		runFrames(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Dispatch the current event of reader like ViewGroup.dispatchTouchEvent does, after running
+	 * the frames due before it.
+	 */
+	void dispatchTouchEvent(PanelGestureTrace.Reader reader) {
+		final long timeNanos = reader.getSampleTime(reader.getSampleCount() - 1) * NANOS_PER_MILLI;
+		runFrames(timeNanos);
+		mNowNanos = Math.max(mNowNanos, timeNanos);
+
+		final int action = reader.getAction();
+		if (action == PanelTouchPipeline.ACTION_DOWN) {
+			mHasChildTarget = false;
+			mIsGestureDropped = false;
+		} else if (mIsGestureDropped) {
+			// The panel didn't want the down, its parent keeps the rest of the gesture.
+			return;
+		}
+		final boolean intercepted;
+		if (action == PanelTouchPipeline.ACTION_DOWN || mHasChildTarget) {
+			intercepted = onInterceptTouchEvent(reader);
+		} else {
+			intercepted = true;
+		}
+		if (mHasChildTarget) {
+			if (intercepted) {
+				// The child gets a cancel, the panel the rest of the gesture.
+				mHasChildTarget = false;
+			}
+			return;
+		}
+		if (!intercepted && action == PanelTouchPipeline.ACTION_DOWN && mChildTakesTouches) {
+			mHasChildTarget = true;
+			return;
+		}
+		if (!onTouchEvent(reader) && action == PanelTouchPipeline.ACTION_DOWN) {
+			mIsGestureDropped = true;
+		}
+	}
+
+	private boolean onInterceptTouchEvent(PanelGestureTrace.Reader reader) {
+		if (mPipeline.isGestureIgnored(reader)) {
+			return false;
+		}
+		PanelTrace.beginSection(PanelTrace.INTERCEPT);
+		try {
+			return mPipeline.onInterceptTouchEvent(reader);
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
+
+	private boolean onTouchEvent(PanelGestureTrace.Reader reader) {
+		if (mPipeline.isGestureIgnored(reader)) {
+			return false;
+		}
+		PanelTrace.beginSection(PanelTrace.TOUCH);
+		try {
+			return mPipeline.onTouchEvent(reader);
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
+
+	/**
+	 * Run the frames due up to the given time: the posted scroll dispatch and the settle frame.
+	 */
+	private void runFrames(long untilNanos) {
+		while (mScheduler.isFramePosted() || mIsScrollDispatchPending) {
+			final long frameTimeNanos = (mNowNanos / mFrameIntervalNanos + 1) * mFrameIntervalNanos;
+			if (frameTimeNanos > untilNanos) {
+				break;
+			}
+			mNowNanos = frameTimeNanos;
+			if (mIsScrollDispatchPending) {
+				dispatchScroll();
+			}
+			mScheduler.dispatchFrame(frameTimeNanos);
+		}
+	}
+
+	private void setState(int newState) {
+		if (mState == newState) {
+			return;
+		}
+		PanelTrace.beginSection(PanelTrace.SET_STATE);
+		try {
+			mState = newState;
+		} finally {
+			PanelTrace.endSection();
+		}
+	}
+
+	private void onPanelScrolled() {
+		if (mIsInSettleFrame) {
+			mHasSettleFrameScroll = true;
+		} else {
+			// Conflate all scrolls of this frame into one dispatch.
+			mIsScrollDispatchPending = true;
+		}
+	}
+
+	private void dispatchScroll() {
+		mIsScrollDispatchPending = false;
+		mScrollDispatches++;
+	}
+
+	private void startFling(boolean isOpen, int velocity) {
+		mIsOpen = isOpen;
+		mIsPhysicsRunning = false;
+		mSettle.abort();
+		final int targetY = isOpen ? mHeight : 0;
+		final int dy = targetY - mScrollY;
+		if (dy == 0) {
+			mLastSettleNanos = 0;
+			completeSettle();
+			setState(isOpen ? STATE_OPENED : STATE_CLOSED);
+			return;
+		}
+		setState(STATE_FLING);
+		if (mPhysics != null) {
+			mPhysics.start(mScrollY, -velocity, targetY);
+			mIsPhysicsRunning = true;
+		} else {
+			mSettle.start(mScrollY, targetY, mMotion.computeSettleDuration(dy, mHeight, velocity),
+					mFrameIntervalNanos, mInterpolator);
+		}
+		mHasSettleStartTime = false;
+		mScheduler.postFrame();
+	}
+
+	private void onSettleFrame(long frameTimeNanos) {
+		PanelTrace.beginSection(PanelTrace.SETTLE_FRAME);
+		mIsInSettleFrame = true;
+		try {
+			mFrames++;
+			if (!mHasSettleStartTime) {
+				// Start one frame back, so the first frame already moves.
+				mHasSettleStartTime = true;
+				mSettleStartNanos = frameTimeNanos - mFrameIntervalNanos;
+			}
+			final boolean more;
+			final int y;
+			if (mIsPhysicsRunning) {
+				more = mPhysics.computeAt((frameTimeNanos - mSettleStartNanos) / NANOS_PER_MILLI);
+				y = (int) PanelMotion.clampScroll(mPhysics.getPosition(), mHeight);
+			} else {
+				more = mSettle.computeAt(frameTimeNanos);
+				y = mSettle.getCurrY();
+			}
+			if (more) {
+				scrollTo(y);
+				mScheduler.postFrame();
+				return;
+			}
+			mLastSettleNanos = frameTimeNanos - mSettleStartNanos;
+			completeSettle();
+		} finally {
+			mIsInSettleFrame = false;
+			if (mHasSettleFrameScroll) {
+				// Dispatched at the end of the settle frame, together with a pending touch scroll.
+				mHasSettleFrameScroll = false;
+				dispatchScroll();
+			}
+			PanelTrace.endSection();
+		}
+	}
+
+	@Override
+	public int getScrollY() {
+		return mScrollY;
+	}
+
+	@Override
+	public int getHeight() {
+		return mHeight;
+	}
+
+	@Override
+	public boolean isOpened() {
+		return mState == STATE_OPENED;
+	}
+
+	@Override
+	public boolean isSettling() {
+		return mState == STATE_FLING;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return mIsOpen;
+	}
+
+	@Override
+	public boolean hasDragHandle() {
+		return false;
+	}
+
+	@Override
+	public boolean isInDragHandle(float x, float y) {
+		return false;
+	}
+
+	@Override
+	public boolean isNestedScrolling() {
+		return false;
+	}
+
+	@Override
+	public boolean requestDrag() {
+		return true;
+	}
+
+	@Override
+	public PanelVelocityEstimator obtainVelocityEstimator() {
+		return mEstimator;
+	}
+
+	@Override
+	public float getSettleVelocity() {
+		return mIsPhysicsRunning ? -mPhysics.getVelocity() : 0;
+	}
+
+	@Override
+	public void abortSettle() {
+		mIsPhysicsRunning = false;
+		mSettle.abort();
+		mScheduler.cancelFrame();
+	}
+
+	@Override
+	public void completeSettle() {
+		if (mState == STATE_FLING) {
+			mIsPhysicsRunning = false;
+			mSettle.abort();
+			scrollTo(mIsOpen ? mHeight : 0);
+			mScheduler.cancelFrame();
+			setState(mIsOpen ? STATE_OPENED : STATE_CLOSED);
+		}
+	}
+
+	@Override
+	public void onTouchDown() {
+	}
+
+	@Override
+	public void prewarmDrag() {
+	}
+
+	@Override
+	public void onDragStarted() {
+		setState(STATE_DRAGGING);
+	}
+
+	@Override
+	public void scrollTo(int scrollY) {
+		if (mScrollY != scrollY) {
+			mScrollY = scrollY;
+			onPanelScrolled();
+		}
+	}
+
+	@Override
+	public void onDragReleased(boolean toOpen, int velocity) {
+		startFling(toOpen, velocity);
+	}
+
+	@Override
+	public void onDragCanceled() {
+		startFling(mIsOpen, 0);
+	}
+
+	@Override
+	public void onGestureEnded() {
+		mEstimator.clear();
+	}
+
+	/**
+	 * @return how long the last settle took to come to rest, 0 if it didn't move.
+	 */
+	long getSettleNanos() {
+		return mLastSettleNanos;
+	}
+
+	/**
+	 * @return settle frames run since {@link #reset(boolean)}.
+	 */
+	int getFrameCount() {
+		return mFrames;
+	}
+
+	/**
+	 * @return scroll dispatches to the listeners since {@link #reset(boolean)}.
+	 */
+	int getScrollDispatchCount() {
+		return mScrollDispatches;
+	}
+}
@@ -0,0 +1,93 @@
+package com.coco.slidinguppanel;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays recorded gesture traces through {@link GestureReplay} and prints, per trace, the final
+ * state, the settle time and the processing cost per event, then a summary.
+ * 
+ * <pre>
+ * mvn -P replay verify -Dreplay.traces=&lt;file or directory&gt; [-Dreplay.physics=spring|decay]
+ * </pre>
+ * 
+ * Each trace starts from a closed panel of the height it was recorded with.
+ */
+public final class GestureReplayRunner {
+	private GestureReplayRunner() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		final List<File> traces = new ArrayList<File>();
+		for (String arg : args) {
+			collect(new File(arg), traces);
+		}
+		if (traces.isEmpty()) {
+			System.err.println("No gesture traces in " + Arrays.toString(args));
+			System.exit(1);
+		}
+		final String physics = System.getProperty("replay.physics");
+
+		long totalEvents = 0;
+		long totalNanos = 0;
+		long totalSettleNanos = 0;
+		int opened = 0;
+		final long start = System.nanoTime();
+		for (File file : traces) {
+			final PanelGestureTrace.Reader reader = new PanelGestureTrace.Reader(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				final GestureReplay replay = new GestureReplay(reader.getHeight(), Interpolators.BOUNCE,
+						createPhysics(physics), GestureReplay.FRAME_INTERVAL_60HZ);
+				replay.reset(false);
+				final long begin = System.nanoTime();
+				final int events = replay.replay(reader);
+				final long nanos = System.nanoTime() - begin;
+				totalEvents += events;
+				totalNanos += nanos;
+				totalSettleNanos += replay.getSettleNanos();
+				if (replay.isOpen()) {
+					opened++;
+				}
+				System.out.printf("%s: %s, settled in %d ms, %d events, %d ns per event%n",
+						file.getName(), replay.isOpen() ? "opened" : "closed",
+						replay.getSettleNanos() / 1000000L, events, events > 0 ? nanos / events : 0);
+			} finally {
+				reader.close();
+			}
+		}
+		final long elapsed = System.nanoTime() - start;
+		System.out.printf("%d traces, %d opened, mean settle %d ms, %d ns per event, %d traces per minute%n",
+				traces.size(), opened, totalSettleNanos / traces.size() / 1000000L,
+				totalEvents > 0 ? totalNanos / totalEvents : 0,
+				traces.size() * 60000000000L / Math.max(1, elapsed));
+	}
+
+	private static PanelPhysics createPhysics(String name) {
+		if ("spring".equals(name)) {
+			return new SpringPhysics();
+		} else if ("decay".equals(name)) {
+			return new DecayPhysics();
+		}
+		return null;
+	}
+
+	private static void collect(File file, List<File> traces) {
+		if (file.isDirectory()) {
+			final File[] files = file.listFiles();
+			if (files != null) {
+				Arrays.sort(files);
+				for (File child : files) {
+					collect(child, traces);
+				}
+			}
+		} else if (file.isFile()) {
+			traces.add(file);
+		}
+	}
+}
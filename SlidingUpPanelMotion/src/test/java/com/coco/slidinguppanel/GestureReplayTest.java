@@ -0,0 +1,127 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class GestureReplayTest {
+	private static final int HEIGHT = GestureTraces.HEIGHT;
+
+	private final GestureReplay mReplay = new GestureReplay(HEIGHT, Interpolators.BOUNCE, null,
+			GestureReplay.FRAME_INTERVAL_60HZ);
+
+	@Test
+	public void flingUpOpens() throws IOException {
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(1800, -3000, 150, 240)));
+		assertTrue(mReplay.isOpen());
+		assertEquals(HEIGHT, mReplay.getScrollY());
+		assertTrue(mReplay.getSettleNanos() > 0);
+		assertTrue(mReplay.getSettleNanos() <= (PanelMotion.MAX_SETTLE_DURATION + 17) * 1000000L);
+	}
+
+	@Test
+	public void slowShortDragFallsBack() throws IOException {
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(1800, -500, 400, 120)));
+		assertFalse(mReplay.isOpen());
+		assertEquals(0, mReplay.getScrollY());
+	}
+
+	@Test
+	public void flingDownCloses() throws IOException {
+		// The open panel is only dragged from its drag region.
+		mReplay.setDragEdgeSize(400);
+		mReplay.reset(true);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(300, 3000, 150, 120)));
+		assertFalse(mReplay.isOpen());
+		assertEquals(0, mReplay.getScrollY());
+	}
+
+	@Test
+	public void openPanelIgnoresDragOutsideDragRegion() throws IOException {
+		mReplay.reset(true);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(300, 3000, 150, 120)));
+		assertTrue(mReplay.isOpen());
+		assertEquals(HEIGHT, mReplay.getScrollY());
+
+		mReplay.setDragEdgeSize(200);
+		mReplay.reset(true);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(300, 3000, 150, 120)));
+		assertTrue(mReplay.isOpen());
+		assertEquals(0, mReplay.getScrollDispatchCount());
+	}
+
+	@Test
+	public void dragIsInterceptedFromChild() throws IOException {
+		mReplay.setChildTakesTouches(true);
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(1800, -3000, 150, 240)));
+		assertTrue(mReplay.isOpen());
+		assertEquals(HEIGHT, mReplay.getScrollY());
+
+		// Sideways the child keeps the gesture.
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(1800, 0, 150, 240)));
+		assertFalse(mReplay.isOpen());
+		assertEquals(0, mReplay.getScrollDispatchCount());
+	}
+
+	@Test
+	public void settleDispatchesScrollOncePerFrame() throws IOException {
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.drag(1800, -3000, 150, 240)));
+		assertTrue(mReplay.getFrameCount() > 0);
+		// Drag scrolls coalesce per frame, settle frames each dispatch their own scroll.
+		assertTrue(mReplay.getScrollDispatchCount() <= mReplay.getFrameCount() + 150 / 16 + 1);
+		assertTrue(mReplay.getScrollDispatchCount() >= mReplay.getFrameCount());
+	}
+
+	@Test
+	public void heldReleaseDecidesByPosition() throws IOException {
+		mReplay.reset(false);
+		// 1200px up, past the 30% threshold, without velocity at the release.
+		mReplay.replay(GestureTraces.read(GestureTraces.dragAndHold(1800, -6000, 200, 100)));
+		assertTrue(mReplay.isOpen());
+	}
+
+	@Test
+	public void handOffFlingOpens() throws IOException {
+		mReplay.reset(false);
+		mReplay.replay(GestureTraces.read(GestureTraces.handOff(1500, -2000, 200)));
+		assertTrue(mReplay.isOpen());
+	}
+
+	@Test
+	public void springSettleComesToRest() throws IOException {
+		final GestureReplay replay = new GestureReplay(HEIGHT, null, new SpringPhysics(),
+				GestureReplay.FRAME_INTERVAL_60HZ);
+		replay.reset(false);
+		replay.replay(GestureTraces.read(GestureTraces.drag(1800, -3000, 150, 240)));
+		assertTrue(replay.isOpen());
+		assertFalse(replay.isSettling());
+		assertEquals(HEIGHT, replay.getScrollY());
+	}
+
+	@Test
+	public void replaysThousandsOfTraces() throws IOException {
+		// A mix of directions, speeds and sample rates, every one must end at rest.
+		for (int i = 0; i < 2000; i++) {
+			final float velocity = (i % 2 == 0 ? -1 : 1) * (200 + i * 37 % 6000);
+			final int touchHz = i % 3 == 0 ? 240 : 120;
+			final byte[] trace = GestureTraces.drag(velocity < 0 ? 1800 : 100, velocity,
+					100 + i % 200, touchHz);
+			// Down drags start in the drag region of the open panel.
+			mReplay.setDragEdgeSize(200);
+			mReplay.setChildTakesTouches(i % 4 < 2);
+			mReplay.reset(velocity > 0);
+			mReplay.replay(GestureTraces.read(trace));
+			assertFalse(mReplay.isSettling());
+			assertEquals(mReplay.isOpen() ? HEIGHT : 0, mReplay.getScrollY());
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package com.coco.slidinguppanel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Builds gesture traces in the format recorded by
+ * {@link SlidingUpPanel#startGestureRecording(java.io.OutputStream)}, and feeds traces to the
+ * motion core the way the panel feeds it touch events.
+ */
+final class GestureTraces {
+	// MotionEvent actions, as recorded.
+	static final int ACTION_DOWN = 0;
+	static final int ACTION_UP = 1;
+	static final int ACTION_MOVE = 2;
+	static final int ACTION_CANCEL = 3;
+	static final int ACTION_POINTER_DOWN = 5;
+	static final int ACTION_POINTER_UP = 6;
+
+	static final int WIDTH = 1080;
+	static final int HEIGHT = 1920;
+
+	private GestureTraces() {
+	}
+
+	/**
+	 * Writes one event after the other, all pointers at x 0.
+	 */
+	static final class Builder {
+		private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+		private final PanelGestureTrace.Writer mWriter;
+
+		Builder() {
+			try {
+				mWriter = new PanelGestureTrace.Writer(mOut, WIDTH, HEIGHT);
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+		}
+
+		/**
+		 * @param times
+		 *            Time of each sample, the historical ones first.
+		 * @param ys
+		 *            Position of each pointer, per sample.
+		 */
+		Builder event(int action, int actionIndex, int[] pointerIds, long[] times, float[][] ys) {
+			try {
+				mWriter.beginEvent(action, actionIndex, pointerIds.length, times.length - 1);
+				for (int s = 0; s < times.length; s++) {
+					mWriter.beginSample(times[s]);
+					for (int p = 0; p < pointerIds.length; p++) {
+						mWriter.writePointer(pointerIds[p], 0f, ys[s][p]);
+					}
+				}
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+			return this;
+		}
+
+		Builder event(int action, long time, float y) {
+			return event(action, 0, new int[] { 0 }, new long[] { time }, new float[][] { { y } });
+		}
+
+		byte[] build() {
+			try {
+				mWriter.close();
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+			return mOut.toByteArray();
+		}
+	}
+
+	/**
+	 * One finger moving at a constant velocity, sampled at touchHz and delivered batched into move
+	 * events at 60Hz.
+	 * 
+	 * @param velocity
+	 *            pixels per second, negative moves up.
+	 */
+	static byte[] drag(float startY, float velocity, int durationMillis, int touchHz) {
+		final Builder builder = new Builder();
+		builder.event(ACTION_DOWN, 0, startY);
+		final int perEvent = Math.max(1, touchHz / 60);
+		final int samples = durationMillis * touchHz / 1000;
+		float y = startY;
+		for (int i = 1; i <= samples; i += perEvent) {
+			final int count = Math.min(perEvent, samples - i + 1);
+			final long[] times = new long[count];
+			final float[][] ys = new float[count][1];
+			for (int s = 0; s < count; s++) {
+				final long time = (i + s) * 1000L / touchHz;
+				times[s] = time;
+				y = startY + velocity * time / 1000f;
+				ys[s][0] = y;
+			}
+			builder.event(ACTION_MOVE, 0, new int[] { 0 }, times, ys);
+		}
+		builder.event(ACTION_UP, samples * 1000L / touchHz, y);
+		return builder.build();
+	}
+
+	/**
+	 * Two fingers 300 pixels apart moving up together at a constant velocity, the first one lifted
+	 * half way, the second one lifted at the end. Sampled at 120Hz, one sample per event.
+	 */
+	static byte[] handOff(float startY, float velocity, int durationMillis) {
+		final Builder builder = new Builder();
+		final float gap = 300f;
+		builder.event(ACTION_DOWN, 0, startY);
+		final int[] both = { 0, 1 };
+		builder.event(ACTION_POINTER_DOWN, 1, both, new long[] { 8 },
+				new float[][] { { startY + velocity * 0.008f, startY + gap + velocity * 0.008f } });
+		final int steps = durationMillis / 8;
+		float y = startY;
+		for (int i = 2; i <= steps; i++) {
+			final long time = i * 8L;
+			y = startY + velocity * time / 1000f;
+			if (i == steps / 2) {
+				builder.event(ACTION_POINTER_UP, 0, both, new long[] { time },
+						new float[][] { { y, y + gap } });
+			} else if (i < steps / 2) {
+				builder.event(ACTION_MOVE, 0, both, new long[] { time }, new float[][] { { y, y + gap } });
+			} else {
+				builder.event(ACTION_MOVE, 0, new int[] { 1 }, new long[] { time },
+						new float[][] { { y + gap } });
+			}
+		}
+		builder.event(ACTION_UP, 0, new int[] { 1 }, new long[] { steps * 8L },
+				new float[][] { { y + gap } });
+		return builder.build();
+	}
+
+	/**
+	 * A drag that holds still for holdMillis before the finger is lifted.
+	 */
+	static byte[] dragAndHold(float startY, float velocity, int durationMillis, int holdMillis) {
+		final Builder builder = new Builder();
+		builder.event(ACTION_DOWN, 0, startY);
+		float y = startY;
+		long time = 0;
+		for (time = 8; time <= durationMillis; time += 8) {
+			y = startY + velocity * time / 1000f;
+			builder.event(ACTION_MOVE, time, y);
+		}
+		builder.event(ACTION_UP, durationMillis + holdMillis, y);
+		return builder.build();
+	}
+
+	static PanelGestureTrace.Reader read(byte[] trace) {
+		try {
+			return new PanelGestureTrace.Reader(new ByteArrayInputStream(trace));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Feed every sample of the current event to estimator for the active pointer, like
+	 * SlidingUpPanel.addVelocitySamples does for a MotionEvent.
+	 */
+	static void addVelocitySamples(PanelGestureTrace.Reader reader, int activePointerId,
+			PanelVelocityEstimator estimator) {
+		final int pointerId;
+		if (reader.getAction() == ACTION_DOWN) {
+			estimator.clear();
+			pointerId = reader.getPointerId(0);
+		} else {
+			pointerId = activePointerId;
+		}
+		final int pointerIndex = findPointerIndex(reader, pointerId);
+		if (pointerIndex < 0) {
+			return;
+		}
+		final int last = reader.getSampleCount() - 1;
+		if (pointerId != estimator.getPointerId()) {
+			final int previousIndex = findPointerIndex(reader, estimator.getPointerId());
+			estimator.handOff(pointerId, reader.getY(last, pointerIndex),
+					previousIndex >= 0 ? reader.getY(last, previousIndex) : Float.NaN);
+		}
+		for (int s = 0; s <= last; s++) {
+			estimator.addSample(reader.getSampleTime(s), reader.getY(s, pointerIndex));
+		}
+	}
+
+	/**
+	 * @return the pointer driving the drag after the current event, chosen like
+	 *         SlidingUpPanel.onTouchPointerUp does.
+	 */
+	static int nextActivePointerId(PanelGestureTrace.Reader reader, int activePointerId) {
+		switch (reader.getAction()) {
+		case ACTION_DOWN:
+			return reader.getPointerId(0);
+		case ACTION_POINTER_DOWN:
+			return reader.getPointerId(reader.getActionIndex());
+		case ACTION_POINTER_UP: {
+			final int pointerIndex = reader.getActionIndex();
+			if (reader.getPointerId(pointerIndex) == activePointerId) {
+				return reader.getPointerId(pointerIndex == 0 ? 1 : 0);
+			}
+			return activePointerId;
+		}
+		default:
+			return activePointerId;
+		}
+	}
+
+	static int findPointerIndex(PanelGestureTrace.Reader reader, int pointerId) {
+		for (int p = 0; p < reader.getPointerCount(); p++) {
+			if (reader.getPointerId(p) == pointerId) {
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Replay a whole trace into estimator.
+	 * 
+	 * @return the velocity at the last up, in pixels per second.
+	 */
+	static float releaseVelocity(byte[] trace, PanelVelocityEstimator estimator, float maxVelocity) {
+		final PanelGestureTrace.Reader reader = read(trace);
+		int activePointerId = -1;
+		float velocity = 0f;
+		try {
+			while (reader.next()) {
+				// Like SlidingUpPanel.onTouchEvent, sample before the event switches pointers.
+				addVelocitySamples(reader, activePointerId, estimator);
+				activePointerId = nextActivePointerId(reader, activePointerId);
+				if (reader.getAction() == ACTION_UP) {
+					velocity = estimator.getVelocity(maxVelocity);
+				}
+			}
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return velocity;
+	}
+}
@@ -0,0 +1,41 @@
+package com.coco.slidinguppanel;
+
+import android.view.animation.Interpolator;
+
+/**
+ * JVM copies of the Android interpolators the panel uses.
+ */
+final class Interpolators {
+	/**
+	 * Same curve as android.view.animation.BounceInterpolator, the panel's default.
+	 */
+	static final Interpolator BOUNCE = new Interpolator() {
+		@Override
+		public float getInterpolation(float t) {
+			t *= 1.1226f;
+			if (t < 0.3535f) {
+				return bounce(t);
+			} else if (t < 0.7408f) {
+				return bounce(t - 0.54719f) + 0.7f;
+			} else if (t < 0.9644f) {
+				return bounce(t - 0.8526f) + 0.9f;
+			} else {
+				return bounce(t - 1.0435f) + 0.95f;
+			}
+		}
+
+		private float bounce(float t) {
+			return t * t * 8.0f;
+		}
+	};
+
+	static final Interpolator LINEAR = new Interpolator() {
+		@Override
+		public float getInterpolation(float t) {
+			return t;
+		}
+	};
+
+	private Interpolators() {
+	}
+}
@@ -0,0 +1,129 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The touch path of the panel must not allocate once it is warm: replays gestures through
+ * {@link PanelTouchPipeline}, the touch handling SlidingUpPanel delegates to, with its velocity
+ * samples, state changes, scroll dispatch, trace sections and settle frames, recording them like
+ * SlidingUpPanel.recordTouchEvent does, and counts the bytes the thread allocated meanwhile.
+ */
+public class MotionAllocationTest {
+	private static final int WARM_UP = 200;
+	private static final int MEASURED = 50;
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	private com.sun.management.ThreadMXBean mThreads;
+	private PanelGestureTrace.Writer mWriter;
+
+	@Before
+	public void setUp() throws IOException {
+		final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		mThreads = (com.sun.management.ThreadMXBean) threads;
+		assumeTrue(mThreads.isThreadAllocatedMemorySupported());
+		mThreads.setThreadAllocatedMemoryEnabled(true);
+		mWriter = new PanelGestureTrace.Writer(DISCARD, GestureTraces.WIDTH, GestureTraces.HEIGHT);
+	}
+
+	@Test
+	public void interpolatedSettleDoesNotAllocate() throws IOException {
+		final GestureReplay replay = new GestureReplay(GestureTraces.HEIGHT, Interpolators.BOUNCE, null,
+				GestureReplay.FRAME_INTERVAL_60HZ);
+		assertEquals(0, allocatedBytes(replay));
+	}
+
+	@Test
+	public void springSettleWithPredictionDoesNotAllocate() throws IOException {
+		final GestureReplay replay = new GestureReplay(GestureTraces.HEIGHT, null, new SpringPhysics(),
+				GestureReplay.FRAME_INTERVAL_60HZ);
+		replay.setDragPredictionHorizon(16);
+		assertEquals(0, allocatedBytes(replay));
+	}
+
+	@Test
+	public void interceptedDragDoesNotAllocate() throws IOException {
+		final GestureReplay replay = new GestureReplay(GestureTraces.HEIGHT, null, new SpringPhysics(),
+				GestureReplay.FRAME_INTERVAL_60HZ);
+		// Every drag is taken from a child by intercepting it.
+		replay.setChildTakesTouches(true);
+		assertEquals(0, allocatedBytes(replay));
+	}
+
+	/**
+	 * @return bytes allocated replaying the measured gestures after the warm up.
+	 */
+	private long allocatedBytes(GestureReplay replay) throws IOException {
+		final byte[][] traces = {
+				GestureTraces.drag(1800, -3000, 150, 240),
+				GestureTraces.drag(300, 2500, 200, 120),
+				GestureTraces.handOff(1500, -2000, 200),
+				GestureTraces.dragAndHold(1800, -6000, 200, 100),
+		};
+		// The down drag closes the open panel from its drag edge.
+		final boolean[] opened = { false, true, false, false };
+		replay.setDragEdgeSize(400);
+		// Readers are decoded up front, the panel gets its events from the framework.
+		final PanelGestureTrace.Reader[] readers = new PanelGestureTrace.Reader[(WARM_UP + MEASURED)
+				* traces.length];
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = GestureTraces.read(traces[i % traces.length]);
+		}
+		int next = 0;
+		for (int i = 0; i < WARM_UP * traces.length; i++) {
+			replay(replay, readers[next], opened[next % traces.length]);
+			next++;
+		}
+		final long threadId = Thread.currentThread().getId();
+		mThreads.getThreadAllocatedBytes(threadId);
+		final long before = mThreads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < MEASURED * traces.length; i++) {
+			replay(replay, readers[next], opened[next % traces.length]);
+			next++;
+		}
+		final long after = mThreads.getThreadAllocatedBytes(threadId);
+		return after - before;
+	}
+
+	private void replay(GestureReplay replay, PanelGestureTrace.Reader reader, boolean open)
+			throws IOException {
+		replay.reset(open);
+		while (reader.next()) {
+			record(reader);
+			replay.dispatchTouchEvent(reader);
+		}
+		replay.runToRest();
+		// Every gesture drags the panel and settles it, none is left to the child.
+		assertTrue(replay.getFrameCount() > 0);
+	}
+
+	private void record(PanelGestureTrace.Reader reader) throws IOException {
+		final int pointerCount = reader.getPointerCount();
+		final int sampleCount = reader.getSampleCount();
+		mWriter.beginEvent(reader.getAction(), reader.getActionIndex(), pointerCount, sampleCount - 1);
+		for (int s = 0; s < sampleCount; s++) {
+			mWriter.beginSample(reader.getSampleTime(s));
+			for (int p = 0; p < pointerCount; p++) {
+				mWriter.writePointer(reader.getPointerId(p), reader.getX(s, p), reader.getY(s, p));
+			}
+		}
+	}
+}
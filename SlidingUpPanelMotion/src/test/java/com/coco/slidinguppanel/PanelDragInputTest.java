@@ -0,0 +1,151 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Prediction error and latency of {@link PanelDragInput} on replayed traces. What the panel draws
+ * for an event shows up on screen a display latency later, so the drawn position is compared with
+ * where the finger is by then. The lag is that error divided by the finger speed.
+ */
+public class PanelDragInputTest {
+	private static final long DISPLAY_LATENCY = 24; // ms
+	private static final float MAX_DISTANCE = GestureReplay.MAX_PREDICTION_DISTANCE;
+
+	/**
+	 * Errors of one replay, in pixels and milliseconds.
+	 */
+	private static final class Errors {
+		float meanError;
+		float maxOvershoot;
+		float meanLag;
+	}
+
+	@Test
+	public void predictionRemovesTheLagOfAConstantDrag() throws IOException {
+		final byte[] trace = GestureTraces.drag(1800, -2000, 500, 240);
+		final Errors raw = measure(trace, 0);
+		final Errors predicted = measure(trace, DISPLAY_LATENCY);
+		// The raw position is behind by the display latency.
+		assertEquals(DISPLAY_LATENCY, raw.meanLag, 1f);
+		assertEquals(0f, predicted.meanLag, 1f);
+		assertTrue(predicted.meanError < raw.meanError / 10);
+	}
+
+	@Test
+	public void predictionReducesTheErrorOfAnEasedDrag() throws IOException {
+		final Errors raw = measure(easedDrag(), 0);
+		final Errors predicted = measure(easedDrag(), DISPLAY_LATENCY);
+		assertTrue(predicted.meanError < raw.meanError / 2);
+		assertTrue(predicted.meanLag < raw.meanLag / 2);
+	}
+
+	@Test
+	public void overshootOfASuddenStopIsBounded() throws IOException {
+		final byte[] trace = GestureTraces.dragAndHold(1800, -8000, 200, 100);
+		final Errors predicted = measure(trace, DISPLAY_LATENCY);
+		assertTrue(predicted.maxOvershoot <= MAX_DISTANCE);
+	}
+
+	@Test
+	public void singleSampleIsNotExtrapolated() {
+		final PanelDragInput input = new PanelDragInput();
+		input.addSample(0, 100f);
+		assertEquals(100f, input.predict(DISPLAY_LATENCY, MAX_DISTANCE), 0f);
+		input.addSample(8, 90f);
+		assertEquals(90f - 30f, input.predict(DISPLAY_LATENCY, MAX_DISTANCE), 0.01f);
+		input.reset();
+		assertEquals(0, input.getSampleCount());
+	}
+
+	/**
+	 * An upward drag of 1200px in 400ms that eases out, 120Hz, one sample per event.
+	 */
+	private static byte[] easedDrag() {
+		final GestureTraces.Builder builder = new GestureTraces.Builder();
+		builder.event(GestureTraces.ACTION_DOWN, 0, 1800f);
+		float y = 1800f;
+		for (long time = 8; time <= 400; time += 8) {
+			final float t = time / 400f;
+			y = 1800f - 1200f * (1 - (1 - t) * (1 - t));
+			builder.event(GestureTraces.ACTION_MOVE, time, y);
+		}
+		builder.event(GestureTraces.ACTION_UP, 400, y);
+		return builder.build();
+	}
+
+	/**
+	 * Replay trace into a drag input, predicting horizon milliseconds ahead for every move event.
+	 */
+	private static Errors measure(byte[] trace, long horizon) throws IOException {
+		// Where the finger really is over time, from every sample of the trace.
+		final long[] times = new long[4096];
+		final float[] ys = new float[4096];
+		int count = 0;
+		PanelGestureTrace.Reader reader = GestureTraces.read(trace);
+		while (reader.next()) {
+			for (int s = 0; s < reader.getSampleCount(); s++) {
+				times[count] = reader.getSampleTime(s);
+				ys[count] = reader.getY(s, 0);
+				count++;
+			}
+		}
+
+		final PanelDragInput input = new PanelDragInput();
+		final Errors errors = new Errors();
+		float errorSum = 0;
+		float lagSum = 0;
+		int moves = 0;
+		int lags = 0;
+		reader = GestureTraces.read(trace);
+		while (reader.next()) {
+			if (reader.getAction() != GestureTraces.ACTION_MOVE) {
+				continue;
+			}
+			for (int s = 0; s < reader.getSampleCount(); s++) {
+				input.addSample(reader.getSampleTime(s), reader.getY(s, 0));
+			}
+			final long time = reader.getSampleTime(reader.getSampleCount() - 1);
+			final float drawn = input.predict(horizon, MAX_DISTANCE);
+			final float shown = positionAt(times, ys, count, time + DISPLAY_LATENCY);
+			final float last = positionAt(times, ys, count, time);
+			final float error = drawn - shown;
+			errorSum += Math.abs(error);
+			moves++;
+			// Drawn past where the finger went, in the direction it moved.
+			final float direction = Math.signum(shown - last);
+			if (direction == 0) {
+				final float moved = ys[count - 1] - ys[0];
+				errors.maxOvershoot = Math.max(errors.maxOvershoot, Math.signum(moved) * error);
+			}
+			final float speed = Math.abs(shown - last) / DISPLAY_LATENCY; // px per ms
+			if (speed > 0.1f) {
+				lagSum += -direction * error / speed;
+				lags++;
+			}
+		}
+		errors.meanError = errorSum / moves;
+		errors.meanLag = lags > 0 ? lagSum / lags : 0;
+		return errors;
+	}
+
+	/**
+	 * Finger position at time, linearly interpolated between samples, held after the last one.
+	 */
+	private static float positionAt(long[] times, float[] ys, int count, long time) {
+		for (int i = 1; i < count; i++) {
+			if (times[i] >= time) {
+				final long span = times[i] - times[i - 1];
+				if (span == 0) {
+					return ys[i];
+				}
+				return ys[i - 1] + (ys[i] - ys[i - 1]) * (time - times[i - 1]) / span;
+			}
+		}
+		return ys[count - 1];
+	}
+}
@@ -0,0 +1,94 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PanelFrameDispatcherTest {
+	private static final int PANELS = 16;
+
+	/**
+	 * Counts its frames, and posts the next one while repost is set.
+	 */
+	private static final class Panel implements PanelFrameScheduler.Callback {
+		PanelFrameScheduler mScheduler;
+		int mFrames;
+		boolean mRepost;
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mFrames++;
+			if (mRepost) {
+				mScheduler.postFrame();
+			}
+		}
+	}
+
+	private final PanelFrameDispatcher mDispatcher = new PanelFrameDispatcher();
+	private final FakeChoreographer mChoreographer = new FakeChoreographer(60, mDispatcher);
+	private final Panel[] mPanels = new Panel[PANELS];
+
+	@Before
+	public void setUp() {
+		mDispatcher.setFrameScheduler(mChoreographer);
+		for (int i = 0; i < PANELS; i++) {
+			mPanels[i] = new Panel();
+			mPanels[i].mScheduler = mDispatcher.createScheduler(mPanels[i]);
+		}
+	}
+
+	@Test
+	public void onlyPostedPanelsRun() {
+		mPanels[3].mScheduler.postFrame();
+		mPanels[9].mScheduler.postFrame();
+		assertEquals(2, mDispatcher.getActiveCount());
+		assertTrue(mChoreographer.isFramePosted());
+		mChoreographer.doFrame();
+		for (int i = 0; i < PANELS; i++) {
+			assertEquals(i == 3 || i == 9 ? 1 : 0, mPanels[i].mFrames);
+		}
+		// Nobody posted again, so the shared callback isn't scheduled any more.
+		assertEquals(0, mDispatcher.getActiveCount());
+		assertFalse(mChoreographer.isFramePosted());
+	}
+
+	@Test
+	public void postingFromAFrameRunsOnTheNextOne() {
+		mPanels[0].mRepost = true;
+		mPanels[0].mScheduler.postFrame();
+		mChoreographer.doFrame();
+		assertEquals(1, mPanels[0].mFrames);
+		assertTrue(mChoreographer.isFramePosted());
+		mPanels[0].mRepost = false;
+		mChoreographer.doFrame();
+		assertEquals(2, mPanels[0].mFrames);
+		assertFalse(mChoreographer.isFramePosted());
+	}
+
+	@Test
+	public void lastCancelCancelsTheSharedFrame() {
+		mPanels[1].mScheduler.postFrame();
+		mPanels[2].mScheduler.postFrame();
+		mPanels[1].mScheduler.cancelFrame();
+		assertTrue(mChoreographer.isFramePosted());
+		mPanels[2].mScheduler.cancelFrame();
+		assertFalse(mChoreographer.isFramePosted());
+		mChoreographer.doFrame();
+		assertEquals(0, mPanels[1].mFrames + mPanels[2].mFrames);
+	}
+
+	@Test
+	public void allPanelsCanBeActive() {
+		for (Panel panel : mPanels) {
+			panel.mScheduler.postFrame();
+		}
+		assertEquals(PANELS, mDispatcher.getActiveCount());
+		mChoreographer.doFrame();
+		for (Panel panel : mPanels) {
+			assertEquals(1, panel.mFrames);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Feeds {@link PanelFrameMetrics} frames from a fake clock, the way SlidingUpPanel.computeScroll
+ * does once per drawn frame, and checks the jank and frame time accounting.
+ */
+public class PanelFrameMetricsTest {
+	private static final long FRAME_60HZ = PanelFrameMetrics.DEFAULT_FRAME_INTERVAL_NANOS;
+	private static final long MS = 1000000L;
+
+	private static final class FakeClock implements PanelFrameMetrics.FrameClock {
+		long mNow = 1000 * MS;
+
+		@Override
+		public long nanoTime() {
+			return mNow;
+		}
+	}
+
+	private final FakeClock mClock = new FakeClock();
+	private final PanelFrameMetrics mMetrics = new PanelFrameMetrics();
+
+	@Before
+	public void setUp() {
+		mMetrics.setClock(mClock);
+	}
+
+	private void frames(int count, long intervalNanos) {
+		for (int i = 0; i < count; i++) {
+			mClock.mNow += intervalNanos;
+			mMetrics.onFrame();
+		}
+	}
+
+	@Test
+	public void steadyFramesMissNoVsync() {
+		mMetrics.begin(PanelFrameMetrics.GESTURE_DRAG, 0);
+		frames(60, FRAME_60HZ);
+		mMetrics.end();
+		assertEquals(PanelFrameMetrics.GESTURE_DRAG, mMetrics.getGesture());
+		assertEquals(60, mMetrics.getFrameCount());
+		assertEquals(0, mMetrics.getMissedVsyncCount());
+		assertEquals(FRAME_60HZ, mMetrics.getWorstFrameIntervalNanos());
+		// The quarter millisecond bucket is capped by the worst interval.
+		assertEquals(FRAME_60HZ, mMetrics.getP95FrameIntervalNanos());
+		assertEquals(1000, mMetrics.getActualDuration());
+		assertEquals(0, mMetrics.getPlannedDuration());
+	}
+
+	@Test
+	public void longFrameCountsTheVsyncsItMissed() {
+		mMetrics.begin(PanelFrameMetrics.GESTURE_FLING, 300);
+		frames(10, FRAME_60HZ);
+		// Three vsync periods, two of them missed.
+		frames(1, 50 * MS);
+		frames(10, FRAME_60HZ);
+		mMetrics.end();
+		assertEquals(21, mMetrics.getFrameCount());
+		assertEquals(2, mMetrics.getMissedVsyncCount());
+		assertEquals(50 * MS, mMetrics.getWorstFrameIntervalNanos());
+		assertEquals(300, mMetrics.getPlannedDuration());
+	}
+
+	@Test
+	public void frameUpToOneAndAHalfPeriodsIsNotJank() {
+		mMetrics.begin(PanelFrameMetrics.GESTURE_DRAG, 0);
+		frames(1, 25 * MS);
+		assertEquals(0, mMetrics.getMissedVsyncCount());
+		frames(1, 26 * MS);
+		assertEquals(1, mMetrics.getMissedVsyncCount());
+	}
+
+	@Test
+	public void jankFollowsTheFrameInterval() {
+		mMetrics.setFrameIntervalNanos(1000000000L / 120);
+		mMetrics.begin(PanelFrameMetrics.GESTURE_DRAG, 0);
+		// A 60Hz frame misses one vsync of a 120Hz display.
+		frames(4, FRAME_60HZ);
+		assertEquals(4, mMetrics.getMissedVsyncCount());
+		mMetrics.setFrameIntervalNanos(0);
+		frames(4, FRAME_60HZ);
+		assertEquals(4, mMetrics.getMissedVsyncCount());
+	}
+
+	@Test
+	public void p95IgnoresTheSlowestFivePercent() {
+		mMetrics.begin(PanelFrameMetrics.GESTURE_FLING, 0);
+		frames(90, FRAME_60HZ);
+		frames(6, 30 * MS);
+		frames(4, 40 * MS);
+		mMetrics.end();
+		assertEquals(100, mMetrics.getFrameCount());
+		assertEquals(40 * MS, mMetrics.getWorstFrameIntervalNanos());
+		// The 95th frame is one of 30ms, reported at the end of its bucket.
+		assertEquals(30 * MS + MS / 4, mMetrics.getP95FrameIntervalNanos());
+	}
+
+	@Test
+	public void framesOutsideAGestureAreIgnored() {
+		mMetrics.onFrame();
+		assertFalse(mMetrics.isRecording());
+		assertEquals(0, mMetrics.getFrameCount());
+		assertEquals(0, mMetrics.getP95FrameIntervalNanos());
+
+		mMetrics.begin(PanelFrameMetrics.GESTURE_DRAG, 0);
+		assertTrue(mMetrics.isRecording());
+		frames(3, FRAME_60HZ);
+		mClock.mNow += 10 * MS;
+		mMetrics.end();
+		frames(5, 100 * MS);
+		assertFalse(mMetrics.isRecording());
+		assertEquals(3, mMetrics.getFrameCount());
+		assertEquals(FRAME_60HZ, mMetrics.getWorstFrameIntervalNanos());
+		// Up to end(), not to the last frame.
+		assertEquals(60, mMetrics.getActualDuration());
+	}
+
+	@Test
+	public void beginStartsOver() {
+		mMetrics.begin(PanelFrameMetrics.GESTURE_FLING, 300);
+		frames(5, 100 * MS);
+		mMetrics.end();
+		mMetrics.begin(PanelFrameMetrics.GESTURE_DRAG, 0);
+		frames(2, FRAME_60HZ);
+		assertEquals(PanelFrameMetrics.GESTURE_DRAG, mMetrics.getGesture());
+		assertEquals(2, mMetrics.getFrameCount());
+		assertEquals(0, mMetrics.getMissedVsyncCount());
+		assertEquals(FRAME_60HZ, mMetrics.getWorstFrameIntervalNanos());
+		assertEquals(FRAME_60HZ, mMetrics.getP95FrameIntervalNanos());
+		assertEquals(0, mMetrics.getPlannedDuration());
+		// Still recording, up to the last frame.
+		assertEquals(33, mMetrics.getActualDuration());
+	}
+}
@@ -0,0 +1,129 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PanelGestureTraceTest {
+	/**
+	 * Keeps what was written, and counts down when closed.
+	 */
+	private static final class Sink extends ByteArrayOutputStream {
+		final CountDownLatch mClosed = new CountDownLatch(1);
+		final Thread mCaller = Thread.currentThread();
+		volatile boolean mWrittenByCaller;
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			if (Thread.currentThread() == mCaller) {
+				mWrittenByCaller = true;
+			}
+			super.write(b, off, len);
+		}
+
+		@Override
+		public void close() {
+			mClosed.countDown();
+		}
+
+		void awaitClosed() throws InterruptedException {
+			assertTrue("stream not closed", mClosed.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void traceRoundTrips() throws IOException {
+		final PanelGestureTrace.Reader reader = GestureTraces.read(GestureTraces.handOff(1500, -2000, 200));
+		assertEquals(GestureTraces.WIDTH, reader.getWidth());
+		assertEquals(GestureTraces.HEIGHT, reader.getHeight());
+		assertTrue(reader.next());
+		assertEquals(GestureTraces.ACTION_DOWN, reader.getAction());
+		assertEquals(1500f, reader.getY(0, 0), 0f);
+		assertTrue(reader.next());
+		assertEquals(GestureTraces.ACTION_POINTER_DOWN, reader.getAction());
+		assertEquals(1, reader.getActionIndex());
+		assertEquals(2, reader.getPointerCount());
+		assertEquals(1, reader.getPointerId(1));
+		assertEquals(8, reader.getSampleTime(0));
+		assertEquals(1500f - 16f + 300f, reader.getY(0, 1), 0.0625f);
+	}
+
+	@Test
+	public void backgroundStreamWritesEverythingOffTheCallingThread() throws Exception {
+		final byte[] trace = GestureTraces.drag(1800, -3000, 2000, 240);
+		final Sink sink = new Sink();
+		final OutputStream out = new PanelGestureTrace.BackgroundOutputStream(sink);
+		// Odd sizes, so writes straddle the chunks.
+		for (int off = 0; off < trace.length; off += 1000) {
+			out.write(trace, off, Math.min(1000, trace.length - off));
+			if (off % 3000 == 0) {
+				out.flush();
+			}
+		}
+		out.write(0x42);
+		out.close();
+		sink.awaitClosed();
+		final byte[] written = sink.toByteArray();
+		assertEquals(trace.length + 1, written.length);
+		for (int i = 0; i < trace.length; i++) {
+			assertEquals(trace[i], written[i]);
+		}
+		assertEquals(0x42, written[trace.length]);
+		assertFalse(sink.mWrittenByCaller);
+	}
+
+	@Test
+	public void failedStreamIsClosedAndReported() throws Exception {
+		final Sink sink = new Sink();
+		final OutputStream failing = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				throw new IOException("disk full");
+			}
+
+			@Override
+			public void close() {
+				sink.close();
+			}
+		};
+		final OutputStream out = new PanelGestureTrace.BackgroundOutputStream(failing);
+		out.write(new byte[10], 0, 10);
+		out.flush();
+		sink.awaitClosed();
+		try {
+			out.write(1);
+			fail("write after a failure");
+		} catch (IOException e) {
+			assertEquals("disk full", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void writeAfterCloseThrows() throws Exception {
+		final Sink sink = new Sink();
+		final OutputStream out = new PanelGestureTrace.BackgroundOutputStream(sink);
+		out.close();
+		sink.awaitClosed();
+		try {
+			out.write(1);
+			fail("write after close");
+		} catch (IOException expected) {
+		}
+		// Closing again is fine.
+		out.close();
+	}
+}
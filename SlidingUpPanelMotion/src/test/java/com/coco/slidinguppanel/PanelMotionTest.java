@@ -0,0 +1,73 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PanelMotionTest {
+	private static final int MIN_VELOCITY = 1200; // px per s, 400dp at 3x
+	private static final int FLING_DISTANCE = 75; // px, 25dp at 3x
+	private static final int HEIGHT = 1920;
+
+	private final PanelMotion mMotion = new PanelMotion(MIN_VELOCITY, FLING_DISTANCE);
+
+	@Test
+	public void clampScrollKeepsTheDragInsideThePanel() {
+		assertEquals(0f, PanelMotion.clampScroll(-10f, HEIGHT), 0f);
+		assertEquals(HEIGHT, PanelMotion.clampScroll(HEIGHT + 10f, HEIGHT), 0f);
+		assertEquals(12.5f, PanelMotion.clampScroll(12.5f, HEIGHT), 0f);
+	}
+
+	@Test
+	public void flingDecidesByDirection() {
+		// Far and fast enough, the direction wins over the position.
+		assertTrue(mMotion.determineToOpen(-2000, -200, 10, HEIGHT, false));
+		assertFalse(mMotion.determineToOpen(2000, 200, HEIGHT - 10, HEIGHT, true));
+	}
+
+	@Test
+	public void slowReleaseDecidesByThreshold() {
+		// Closed panels open past 30%, open panels stay open past 70%.
+		assertFalse(mMotion.determineToOpen(0, -500, (int) (HEIGHT * 0.29f), HEIGHT, false));
+		assertTrue(mMotion.determineToOpen(0, -700, (int) (HEIGHT * 0.31f), HEIGHT, false));
+		assertFalse(mMotion.determineToOpen(0, 700, (int) (HEIGHT * 0.69f), HEIGHT, true));
+		assertTrue(mMotion.determineToOpen(0, 500, (int) (HEIGHT * 0.71f), HEIGHT, true));
+	}
+
+	@Test
+	public void shortFlickDecidesByThreshold() {
+		// Fast but shorter than the fling distance.
+		assertFalse(mMotion.determineToOpen(-5000, -FLING_DISTANCE, 10, HEIGHT, false));
+	}
+
+	@Test
+	public void settleDurationShrinksWithVelocity() {
+		final int slow = mMotion.computeSettleDuration(HEIGHT / 2, HEIGHT, 0);
+		final int fast = mMotion.computeSettleDuration(HEIGHT / 2, HEIGHT, 8000);
+		assertTrue(fast < slow);
+		assertTrue(slow <= PanelMotion.MAX_SETTLE_DURATION);
+		assertEquals(0, mMotion.computeSettleDuration(100, 0, 1000));
+	}
+
+	@Test
+	public void settleDurationIsCapped() {
+		final PanelMotion motion = new PanelMotion(0, FLING_DISTANCE);
+		assertEquals(PanelMotion.MAX_SETTLE_DURATION, motion.computeSettleDuration(HEIGHT, HEIGHT, 0));
+		assertEquals(PanelMotion.MAX_SETTLE_DURATION, motion.computeSettleDuration(HEIGHT, HEIGHT, 1));
+	}
+
+	@Test
+	public void snapInfluenceIsCenteredOnHalfTheDistance() {
+		assertEquals(0f, PanelMotion.distanceInfluenceForSnapDuration(0.5f), 1e-6f);
+		assertEquals(-PanelMotion.distanceInfluenceForSnapDuration(1f),
+				PanelMotion.distanceInfluenceForSnapDuration(0f), 1e-6f);
+	}
+
+	@Test
+	public void decayVelocityFallsToOneOverE() {
+		assertEquals(1000f, PanelMotion.decayVelocity(1000f, 0, 120f), 0f);
+		assertEquals(1000f / Math.E, PanelMotion.decayVelocity(1000f, 120, 120f), 1e-3f);
+	}
+}
@@ -0,0 +1,92 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PanelPhysicsTest {
+	private static final int HEIGHT = 1920;
+
+	@Test
+	public void decayKeepsAFastReleaseVelocity() {
+		final DecayPhysics physics = new DecayPhysics();
+		physics.start(1000, 6000, HEIGHT);
+		assertTrue(physics.computeAt(0));
+		assertEquals(6000f, physics.getVelocity(), 1f);
+		assertEquals(1000f, physics.getPosition(), 0.01f);
+	}
+
+	@Test
+	public void decayLandsOnTheTargetWithoutOvershoot() {
+		final DecayPhysics physics = new DecayPhysics();
+		physics.start(1000, 6000, HEIGHT);
+		float last = 1000;
+		long t = 0;
+		while (physics.computeAt(t)) {
+			assertTrue(physics.getPosition() >= last);
+			assertTrue(physics.getPosition() <= HEIGHT);
+			last = physics.getPosition();
+			t += 16;
+		}
+		assertEquals(HEIGHT, physics.getPosition(), 0f);
+		assertEquals(0f, physics.getVelocity(), 0f);
+		// 920px from 6000px/s to 0 at constant deceleration.
+		assertEquals(2 * 920f / 6000f, t / 1000f, 0.017f);
+	}
+
+	@Test
+	public void decaySlowReleaseStartsAtTheFrictionSpeed() {
+		final DecayPhysics physics = new DecayPhysics(8000);
+		// Moving away from the target.
+		physics.start(400, 500, 0);
+		physics.computeAt(0);
+		assertEquals(-(float) Math.sqrt(2 * 8000 * 400), physics.getVelocity(), 1f);
+		// sqrt(2 * d / friction)
+		assertTrue(physics.computeAt(315));
+		assertFalse(physics.computeAt(317));
+		assertEquals(0f, physics.getPosition(), 0f);
+	}
+
+	@Test
+	public void decayAtTheTargetIsAtRest() {
+		final DecayPhysics physics = new DecayPhysics();
+		physics.start(HEIGHT, 3000, HEIGHT);
+		assertFalse(physics.computeAt(0));
+		assertEquals(HEIGHT, physics.getPosition(), 0f);
+	}
+
+	@Test
+	public void positionOnlyDependsOnTime() {
+		final PanelPhysics[] physics = { new DecayPhysics(), new SpringPhysics() };
+		for (PanelPhysics p : physics) {
+			p.start(200, -3000, HEIGHT);
+			for (long t = 0; t < 100; t += 7) {
+				p.computeAt(t);
+			}
+			p.computeAt(100);
+			final float stepped = p.getPosition();
+			p.start(200, -3000, HEIGHT);
+			p.computeAt(100);
+			assertEquals(stepped, p.getPosition(), 0f);
+		}
+	}
+
+	@Test
+	public void springComesToRestOnTheTarget() {
+		final SpringPhysics physics = new SpringPhysics();
+		physics.start(0, -4000, HEIGHT);
+		long t = 0;
+		while (physics.computeAt(t)) {
+			t += 16;
+		}
+		assertEquals(HEIGHT, physics.getPosition(), 0f);
+		assertEquals(0f, physics.getVelocity(), 0f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decayNeedsFriction() {
+		new DecayPhysics(0);
+	}
+}
@@ -0,0 +1,115 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Drives {@link PanelSettle} from a fake Choreographer the way SlidingUpPanel.onSettleFrame does,
+ * at the refresh rates of current displays.
+ */
+public class PanelSettleTest {
+	private static final int HEIGHT = 1920;
+	private static final int DURATION = 300; // ms
+
+	/**
+	 * The settle part of the panel: move to the settle position at each frame, request the next
+	 * frame only while it moves on.
+	 */
+	private static final class SettleLoop implements PanelFrameScheduler.Callback {
+		final PanelSettle mSettle = new PanelSettle();
+		final int[] mPositions = new int[256];
+		int mFrames;
+		PanelFrameScheduler mScheduler;
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			final boolean more = mSettle.computeAt(frameTimeNanos);
+			mPositions[mFrames++] = mSettle.getCurrY();
+			if (more) {
+				mScheduler.postFrame();
+			}
+		}
+	}
+
+	@Test
+	public void stepsAreUniformAt60Hz() {
+		assertUniformSettle(60);
+	}
+
+	@Test
+	public void stepsAreUniformAt90Hz() {
+		assertUniformSettle(90);
+	}
+
+	@Test
+	public void stepsAreUniformAt120Hz() {
+		assertUniformSettle(120);
+	}
+
+	@Test
+	public void durationIsRoundedUpToWholeFrames() {
+		final PanelSettle settle = new PanelSettle();
+		settle.start(0, HEIGHT, 290, PanelFrameScheduler.DEFAULT_FRAME_INTERVAL_NANOS,
+				Interpolators.LINEAR);
+		// 290ms are 17.4 frames of 16.7ms.
+		assertEquals(300, settle.getDuration());
+		settle.start(0, HEIGHT, 0, 1000000000L / 120, Interpolators.LINEAR);
+		assertEquals(8, settle.getDuration());
+	}
+
+	@Test
+	public void computeAtIsFalseAtRest() {
+		final PanelSettle settle = new PanelSettle();
+		assertFalse(settle.computeAt(0));
+		settle.start(0, HEIGHT, DURATION, PanelFrameScheduler.DEFAULT_FRAME_INTERVAL_NANOS,
+				Interpolators.LINEAR);
+		settle.abort();
+		assertFalse(settle.computeAt(1000000000L));
+		assertTrue(settle.isFinished());
+	}
+
+	@Test
+	public void cancelledFrameIsNotDispatched() {
+		final SettleLoop loop = new SettleLoop();
+		final FakeChoreographer choreographer = new FakeChoreographer(60, loop);
+		loop.mScheduler = choreographer;
+		loop.mSettle.start(0, HEIGHT, DURATION, choreographer.getFrameIntervalNanos(),
+				Interpolators.LINEAR);
+		choreographer.postFrame();
+		choreographer.cancelFrame();
+		choreographer.doFrame();
+		assertEquals(0, loop.mFrames);
+		assertFalse(choreographer.isFramePosted());
+	}
+
+	private static void assertUniformSettle(int refreshRate) {
+		final SettleLoop loop = new SettleLoop();
+		final FakeChoreographer choreographer = new FakeChoreographer(refreshRate, loop);
+		loop.mScheduler = choreographer;
+		final long interval = choreographer.getFrameIntervalNanos();
+		loop.mSettle.start(0, HEIGHT, DURATION, interval, Interpolators.LINEAR);
+		choreographer.postFrame();
+		int guard = 0;
+		while (choreographer.isFramePosted() && guard++ < 1000) {
+			choreographer.doFrame();
+		}
+
+		final int frames = (int) ((DURATION * 1000000L + interval - 1) / interval);
+		assertEquals(frames, loop.mFrames);
+		// Every frame moves by the same step, up to rounding, and the last one lands on the target.
+		final float step = (float) HEIGHT / frames;
+		int previous = 0;
+		for (int i = 0; i < loop.mFrames; i++) {
+			assertEquals(step, loop.mPositions[i] - previous, 1f);
+			previous = loop.mPositions[i];
+		}
+		assertEquals(HEIGHT, loop.mPositions[frames - 1]);
+		// At rest nothing is scheduled any more.
+		assertFalse(choreographer.isFramePosted());
+		assertEquals(frames, choreographer.getPostCount());
+		assertFalse(loop.mSettle.computeAt(Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,77 @@
+package com.coco.slidinguppanel;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PanelVelocityEstimatorTest {
+	private static final float MAX_VELOCITY = 24000; // px per s, 8000dp at 3x
+
+	private final PanelVelocityEstimator mEstimator = new PanelVelocityEstimator();
+
+	@Test
+	public void constantFlingFromBatchedSamples() {
+		// 240Hz touch delivered in 60Hz move events, the history carries most samples.
+		final byte[] trace = GestureTraces.drag(1800, -3000, 150, 240);
+		assertEquals(-3000f, GestureTraces.releaseVelocity(trace, mEstimator, MAX_VELOCITY), 30f);
+	}
+
+	@Test
+	public void constantFlingFrom120Hz() {
+		final byte[] trace = GestureTraces.drag(200, 2500, 200, 120);
+		assertEquals(2500f, GestureTraces.releaseVelocity(trace, mEstimator, MAX_VELOCITY), 25f);
+	}
+
+	@Test
+	public void velocitySurvivesPointerHandOff() {
+		// The second finger is 300px below the first, a jump a plain tracker would see as velocity.
+		final byte[] trace = GestureTraces.handOff(1500, -2000, 200);
+		assertEquals(-2000f, GestureTraces.releaseVelocity(trace, mEstimator, MAX_VELOCITY), 20f);
+	}
+
+	@Test
+	public void handOffWithoutPreviousPointerContinuesFromNewestSample() {
+		mEstimator.handOff(0, 1000, Float.NaN);
+		for (int t = 0; t <= 40; t += 8) {
+			mEstimator.addSample(t, 1000 - t);
+		}
+		// The first pointer is gone, the second one starts 500px away.
+		mEstimator.handOff(1, 1460, Float.NaN);
+		for (int t = 48; t <= 80; t += 8) {
+			mEstimator.addSample(t, 1460 - (t - 40));
+		}
+		assertEquals(-1000f, mEstimator.getVelocity(MAX_VELOCITY), 1f);
+	}
+
+	@Test
+	public void pauseBeforeReleaseStops() {
+		final byte[] trace = GestureTraces.dragAndHold(1800, -3000, 120, 100);
+		assertEquals(0f, GestureTraces.releaseVelocity(trace, mEstimator, MAX_VELOCITY), 0f);
+	}
+
+	@Test
+	public void outOfOrderSampleStartsOver() {
+		mEstimator.handOff(0, 0, Float.NaN);
+		for (int t = 100; t <= 140; t += 8) {
+			mEstimator.addSample(t, t * 10);
+		}
+		// Time going back, only the samples from there on count.
+		for (int t = 50; t <= 82; t += 8) {
+			mEstimator.addSample(t, -t);
+		}
+		assertEquals(-1000f, mEstimator.getVelocity(MAX_VELOCITY), 1f);
+	}
+
+	@Test
+	public void velocityIsClamped() {
+		final byte[] trace = GestureTraces.drag(1800, -40000, 40, 120);
+		assertEquals(-MAX_VELOCITY, GestureTraces.releaseVelocity(trace, mEstimator, MAX_VELOCITY), 0f);
+	}
+
+	@Test
+	public void singleSampleHasNoVelocity() {
+		mEstimator.handOff(0, 0, Float.NaN);
+		mEstimator.addSample(0, 100);
+		assertEquals(0f, mEstimator.getVelocity(MAX_VELOCITY), 0f);
+	}
+}